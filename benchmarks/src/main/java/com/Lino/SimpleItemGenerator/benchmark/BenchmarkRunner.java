@@ -0,0 +1,40 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar: the normal JMH command line, but results always go to a JSON file
+ * (target/jmh-result.json unless -rf/-rff say otherwise), so runs of different versions can be compared.
+ *
+ * Examples:
+ *   java -jar benchmarks.jar                                  every benchmark
+ *   java -jar benchmarks.jar GlobalTask -p generators=100000  one benchmark, one size
+ *   java -jar benchmarks.jar -rff results/1.0.json
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("target/jmh-result.json");
+        }
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
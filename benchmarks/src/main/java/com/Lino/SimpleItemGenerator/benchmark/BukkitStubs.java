@@ -0,0 +1,174 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.entity.Item;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.meta.Damageable;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Implementazioni minime delle interfacce Bukkit usate dal plugin, fatte con java.lang.reflect.Proxy,
+ * cosi' i benchmark girano senza server.
+ *
+ * Coprono solo quello che serve: mondi con tutti i chunk caricati, drop che non fanno nulla e ItemMeta
+ * che memorizzano le proprieta' impostate (nome, lore, ...) e le confrontano per isSimilar.
+ * Ogni metodo non gestito restituisce il valore di default del suo tipo.
+ */
+public final class BukkitStubs {
+    private static final Map<String, World> WORLDS = new HashMap<>();
+
+    private BukkitStubs() {
+    }
+
+    public static synchronized void install() {
+        if (Bukkit.getServer() != null) return;
+
+        Logger logger = Logger.getLogger("SimpleItemGenerator-Benchmarks");
+        ItemFactory itemFactory = proxy(ItemFactory.class, (method, args) -> switch (method.getName()) {
+            case "getItemMeta" -> newItemMeta(new HashMap<>());
+            case "isApplicable" -> true;
+            case "asMetaFor" -> args[0];
+            case "equals" -> propertiesOf((ItemMeta) args[0]).equals(propertiesOf((ItemMeta) args[1]));
+            default -> defaultValue(method);
+        });
+
+        Bukkit.setServer(proxy(Server.class, (method, args) -> switch (method.getName()) {
+            case "getLogger" -> logger;
+            case "getName" -> "BukkitStubs";
+            case "getVersion", "getBukkitVersion" -> "benchmark";
+            case "getItemFactory" -> itemFactory;
+            case "getWorld" -> args[0] instanceof String name ? WORLDS.get(name) : null;
+            case "getWorlds" -> new ArrayList<>(WORLDS.values());
+            default -> defaultValue(method);
+        }));
+    }
+
+    /**
+     * A world where every chunk is loaded and dropped items go nowhere.
+     */
+    public static synchronized World world(String name) {
+        return WORLDS.computeIfAbsent(name, BukkitStubs::newWorld);
+    }
+
+    private static World newWorld(String name) {
+        UUID uid = UUID.nameUUIDFromBytes(name.getBytes());
+        Item item = proxy(Item.class, (method, args) -> defaultValue(method));
+
+        return proxy(World.class, (method, args) -> switch (method.getName()) {
+            case "getName" -> name;
+            case "getUID" -> uid;
+            case "isChunkLoaded" -> true;
+            case "getLoadedChunks" -> new Chunk[0];
+            case "dropItem", "dropItemNaturally" -> item;
+            case "getNearbyEntities" -> new ArrayList<>();
+            default -> defaultValue(method);
+        });
+    }
+
+    private static ItemMeta newItemMeta(Map<String, Object> properties) {
+        // Damageable perche' ItemStack.getDurability() fa il cast della meta
+        return proxy(Damageable.class, new MetaHandler(properties));
+    }
+
+    private static Map<String, Object> propertiesOf(ItemMeta meta) {
+        if (meta == null) return Map.of();
+        return ((MetaHandler) ((ProxyHandler) Proxy.getInvocationHandler(meta)).handler).properties;
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(BukkitStubs.class.getClassLoader(), new Class<?>[]{type},
+                new ProxyHandler(handler)));
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (!type.isPrimitive() || type == void.class) return null;
+        if (type == boolean.class) return false;
+        if (type == char.class) return '\0';
+        if (type == long.class) return 0L;
+        if (type == float.class) return 0f;
+        if (type == double.class) return 0d;
+        if (type == byte.class) return (byte) 0;
+        if (type == short.class) return (short) 0;
+        return 0;
+    }
+
+    /**
+     * Identity equals/hashCode/toString for every proxy, the rest goes to the handler.
+     */
+    private record ProxyHandler(Handler handler) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> handler instanceof MetaHandler meta && args[0] instanceof ItemMeta other
+                            ? meta.properties.equals(propertiesOf(other))
+                            : proxy == args[0];
+                    case "hashCode" -> handler instanceof MetaHandler meta
+                            ? meta.properties.hashCode()
+                            : System.identityHashCode(proxy);
+                    default -> method.getDeclaringClass().getSimpleName() + "Stub";
+                };
+            }
+            return handler.invoke(method, args);
+        }
+    }
+
+    /**
+     * setX(value) stores a property, getX() and hasX() read it back, clone() copies them.
+     */
+    private static final class MetaHandler implements Handler {
+        private final Map<String, Object> properties;
+
+        private MetaHandler(Map<String, Object> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object invoke(Method method, Object[] args) {
+            String name = method.getName();
+            int argCount = args == null ? 0 : args.length;
+
+            if (name.equals("clone")) {
+                return newItemMeta(new HashMap<>(properties));
+            }
+            if (name.startsWith("set") && argCount == 1) {
+                Object value = args[0] instanceof Collection<?> collection ? new ArrayList<>(collection) : args[0];
+                if (value == null) {
+                    properties.remove(name.substring(3));
+                } else {
+                    properties.put(name.substring(3), value);
+                }
+                return null;
+            }
+            if (name.startsWith("get") && argCount == 0) {
+                Object value = properties.get(name.substring(3));
+                if (value instanceof Collection<?> collection) return new ArrayList<>(collection);
+                return value != null ? value : defaultValue(method);
+            }
+            if (name.startsWith("has") && argCount == 0 && method.getReturnType() == boolean.class) {
+                return Objects.nonNull(properties.get(name.substring(3)));
+            }
+            return defaultValue(method);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import com.Lino.SimpleItemGenerator.GeneratorConfig;
+import com.Lino.SimpleItemGenerator.GeneratorData;
+import com.Lino.SimpleItemGenerator.StoredGenerator;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+/**
+ * Dati comuni ai benchmark: una configurazione come quella di default e generatori sparsi
+ * su una fascia larga 16 regioni, con un numero fisso di proprietari.
+ */
+final class Fixtures {
+    static final String WORLD = "world";
+    static final int OWNERS = 100;
+
+    private static final String GENERATOR = """
+            display-name: "&b&lDiamond Generator"
+            block-type: LODESTONE
+            cooldown: 1
+            particles: true
+            items:
+              diamond:
+                material: DIAMOND
+                amount: 1
+                weight: 70
+                name: "&b✦ Pure Diamond ✦"
+                lore:
+                  - "&7A high quality diamond"
+                  - "&7magically generated"
+              diamond_block:
+                material: DIAMOND_BLOCK
+                amount: 1
+                weight: 10
+                name: "&b&lCompressed Diamond Block"
+              emerald:
+                material: EMERALD
+                amount: 2
+                weight: 20
+            """;
+
+    private Fixtures() {
+    }
+
+    static GeneratorConfig config(boolean seeded) {
+        BukkitStubs.install();
+
+        YamlConfiguration yaml = new YamlConfiguration();
+        try {
+            yaml.loadFromString(seeded ? GENERATOR + "random-seed: 12345\n" : GENERATOR);
+        } catch (InvalidConfigurationException e) {
+            throw new IllegalStateException(e);
+        }
+        return new GeneratorConfig(yaml);
+    }
+
+    static UUID owner(int index) {
+        return new UUID(0x5349L, index % OWNERS);
+    }
+
+    /**
+     * Generators at distinct positions, the same for every call with the same count.
+     */
+    static List<GeneratorData> generators(int count, GeneratorConfig config) {
+        World world = BukkitStubs.world(WORLD);
+        SplittableRandom random = new SplittableRandom(count);
+        List<GeneratorData> generators = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            // x e z unici per costruzione, y casuale
+            int x = (i % 8192) - 4096;
+            int z = (i / 8192) * 16 + random.nextInt(16) - 4096;
+            Location location = new Location(world, x, random.nextInt(-64, 320), z);
+            generators.add(new GeneratorData(location, 0, "diamond", config, owner(i)));
+        }
+        return generators;
+    }
+
+    static List<StoredGenerator> storedGenerators(int count) {
+        List<StoredGenerator> stored = new ArrayList<>(count);
+        for (GeneratorData data : generators(count, config(false))) {
+            data.setItemsGenerated(count);
+            stored.add(StoredGenerator.of(data));
+        }
+        return stored;
+    }
+}
@@ -0,0 +1,72 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import com.Lino.SimpleItemGenerator.GeneratorConfig;
+import com.Lino.SimpleItemGenerator.GeneratorData;
+import com.Lino.SimpleItemGenerator.GeneratorScheduler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un giro del task globale sul GeneratorScheduler, con un orologio virtuale.
+ *
+ * allDue: ogni generatore e' scaduto (estrazione + rischedulazione per ciascuno);
+ * noneDue: nessuno e' scaduto, cioe' il caso normale tra un cooldown e l'altro.
+ * Il drop dell'entita' non e' incluso, dipende dal server.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GlobalTaskBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int generators;
+
+    private final GeneratorScheduler scheduler = new GeneratorScheduler();
+    private long cooldownMillis;
+    private long now;
+
+    @Setup
+    public void setup() {
+        GeneratorConfig config = Fixtures.config(false);
+        List<GeneratorData> all = Fixtures.generators(generators, config);
+
+        cooldownMillis = config.getCooldown() * 1000L;
+        now = 0;
+        for (GeneratorData data : all) {
+            data.setLastGeneration(now);
+            scheduler.schedule(data);
+        }
+    }
+
+    @Benchmark
+    public int allDue(Blackhole blackhole) {
+        // Avanzando di un cooldown scadono tutti
+        long currentTime = now += cooldownMillis;
+        return scheduler.pollDue(currentTime, data -> {
+            blackhole.consume(data.getConfig().getRandomItem());
+            data.setLastGeneration(currentTime);
+            scheduler.schedule(data);
+        });
+    }
+
+    @Benchmark
+    public int noneDue(Blackhole blackhole) {
+        return scheduler.pollDue(now, blackhole::consume);
+    }
+}
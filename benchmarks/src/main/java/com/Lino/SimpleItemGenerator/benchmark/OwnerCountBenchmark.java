@@ -0,0 +1,62 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import com.Lino.SimpleItemGenerator.GeneratorData;
+import com.Lino.SimpleItemGenerator.OwnerIndex;
+import org.bukkit.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conteggio dei generatori di un giocatore al piazzamento: OwnerIndex contro la vecchia
+ * countPlayerGenerators, che scorreva tutti i generatori attivi.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OwnerCountBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int generators;
+
+    private final Map<Location, GeneratorData> activeGenerators = new ConcurrentHashMap<>();
+    private final OwnerIndex ownerIndex = new OwnerIndex();
+    private UUID owner;
+
+    @Setup
+    public void setup() {
+        for (GeneratorData data : Fixtures.generators(generators, Fixtures.config(false))) {
+            activeGenerators.put(data.getLocation(), data);
+            ownerIndex.add(data);
+        }
+        owner = Fixtures.owner(Fixtures.OWNERS / 2);
+    }
+
+    @Benchmark
+    public int ownerIndex() {
+        return ownerIndex.count(owner);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        return (int) activeGenerators.values().stream()
+                .filter(data -> data.getPlacer().equals(owner))
+                .count();
+    }
+}
@@ -0,0 +1,57 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import com.Lino.SimpleItemGenerator.GeneratorConfig;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo di un'estrazione: la tabella alias da sola, getRandomItem (estrazione + clone dello stack)
+ * e il batch del catch-up offline.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SamplingBenchmark {
+
+    @Param({"false", "true"})
+    public boolean seeded;
+
+    private GeneratorConfig config;
+
+    @Setup
+    public void setup() {
+        config = Fixtures.config(seeded);
+    }
+
+    @Benchmark
+    public ItemStack lootTableSample() {
+        return config.getLootTable().sample(ThreadLocalRandom.current());
+    }
+
+    @Benchmark
+    public ItemStack getRandomItem() {
+        return config.getRandomItem();
+    }
+
+    @Benchmark
+    public List<ItemStack> getRandomItemsCatchUp() {
+        return config.getRandomItems(64);
+    }
+}
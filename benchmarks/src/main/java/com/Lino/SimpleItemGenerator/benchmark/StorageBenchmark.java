@@ -0,0 +1,157 @@
+package com.Lino.SimpleItemGenerator.benchmark;
+
+import com.Lino.SimpleItemGenerator.BinaryRegionStore;
+import com.Lino.SimpleItemGenerator.GeneratorChange;
+import com.Lino.SimpleItemGenerator.GeneratorStore;
+import com.Lino.SimpleItemGenerator.RegionManager;
+import com.Lino.SimpleItemGenerator.SqliteGeneratorStore;
+import com.Lino.SimpleItemGenerator.StoredGenerator;
+import com.Lino.SimpleItemGenerator.YamlGeneratorStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Salvataggio e caricamento completi per ogni backend, piu' il salvataggio tipico dell'autosave:
+ * solo i contatori cambiati (1% dei generatori).
+ *
+ * Ogni invocazione usa una cartella temporanea nuova, quindi i tempi includono la creazione dei file.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+    private static final Logger LOGGER = Logger.getLogger("SimpleItemGenerator-Benchmarks");
+
+    @Param({"BINARY", "SQLITE", "YAML"})
+    public String backend;
+
+    @Param({"1000", "10000", "100000"})
+    public int generators;
+
+    // regione -> generatori, nello stesso ordine in cui il RegionManager li salverebbe
+    private final Map<String, List<StoredGenerator>> regions = new LinkedHashMap<>();
+    private final Map<UUID, Integer> ownerCounts = new HashMap<>();
+    private Path folder;
+
+    @Setup(Level.Trial)
+    public void prepare() {
+        for (StoredGenerator generator : Fixtures.storedGenerators(generators)) {
+            String region = RegionManager.regionOf(generator.getX()) + "," + RegionManager.regionOf(generator.getZ());
+            regions.computeIfAbsent(region, k -> new ArrayList<>()).add(generator);
+            ownerCounts.merge(generator.getPlacer(), 1, Integer::sum);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createFolder() throws IOException {
+        folder = Files.createTempDirectory("sig-bench");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteFolder() throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public GeneratorStore saveAll() throws IOException {
+        GeneratorStore store = open();
+        saveRegions(store, GeneratorChange.Type.PLACE, 1);
+        store.close();
+        return store;
+    }
+
+    @Benchmark
+    public int saveThenLoadAll() throws IOException {
+        GeneratorStore store = open();
+        saveRegions(store, GeneratorChange.Type.PLACE, 1);
+        store.close();
+
+        GeneratorStore reopened = open();
+        int loaded = 0;
+        for (List<StoredGenerator> region : regions.values()) {
+            StoredGenerator first = region.get(0);
+            loaded += reopened.loadRegion(first.getWorld(), RegionManager.regionOf(first.getX()),
+                    RegionManager.regionOf(first.getZ())).size();
+        }
+        reopened.close();
+
+        if (loaded != generators) {
+            throw new IllegalStateException("Loaded " + loaded + " of " + generators + " generators");
+        }
+        return loaded;
+    }
+
+    @Benchmark
+    public GeneratorStore saveChangedCounters() throws IOException {
+        GeneratorStore store = open();
+        saveRegions(store, GeneratorChange.Type.PLACE, 1);
+
+        // Solo questo giro conta davvero, il primo prepara il backend; vedi saveAll per sottrarlo
+        saveRegions(store, GeneratorChange.Type.COUNTER, 100);
+        store.close();
+        return store;
+    }
+
+    private GeneratorStore open() throws IOException {
+        File dataFolder = folder.toFile();
+        GeneratorStore store = switch (backend) {
+            case "BINARY" -> new BinaryRegionStore(dataFolder, LOGGER);
+            case "SQLITE" -> new SqliteGeneratorStore(dataFolder, LOGGER);
+            case "YAML" -> new YamlGeneratorStore(dataFolder, LOGGER);
+            default -> throw new IllegalArgumentException(backend);
+        };
+        store.open();
+        return store;
+    }
+
+    /**
+     * Saves every region as the RegionManager would, with one change per {@code every} generators.
+     */
+    private void saveRegions(GeneratorStore store, GeneratorChange.Type type, int every) throws IOException {
+        for (List<StoredGenerator> region : regions.values()) {
+            List<GeneratorChange> changes = new ArrayList<>(region.size() / every + 1);
+            for (int i = 0; i < region.size(); i += every) {
+                changes.add(new GeneratorChange(type, region.get(i)));
+            }
+
+            StoredGenerator first = region.get(0);
+            store.saveRegion(first.getWorld(), RegionManager.regionOf(first.getX()),
+                    RegionManager.regionOf(first.getZ()), changes, () -> region);
+        }
+        store.saveOwnerCounts(ownerCounts);
+        store.commit();
+    }
+}
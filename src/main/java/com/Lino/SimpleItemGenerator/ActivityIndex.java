@@ -0,0 +1,54 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Indice ordinato per PlayerData.lastActive, aggiornato da join, quit e piazzamenti.
+ * Il filtro inactive: legge solo i giocatori piu' vecchi del limite invece di scorrerli tutti.
+ *
+ * Synchronized: i piazzamenti arrivano dai thread di regione su Folia.
+ */
+public class ActivityIndex {
+    private final TreeMap<Long, Set<UUID>> byLastActive = new TreeMap<>();
+    private final Map<UUID, Long> lastActive = new HashMap<>();
+
+    /**
+     * Records the player's current lastActive, replacing the previous one.
+     */
+    public synchronized void update(PlayerData data) {
+        UUID uuid = data.getUuid();
+        long time = data.getLastActive();
+        Long previous = lastActive.put(uuid, time);
+        if (previous != null) {
+            if (previous == time) return;
+
+            Set<UUID> players = byLastActive.get(previous);
+            players.remove(uuid);
+            if (players.isEmpty()) {
+                byLastActive.remove(previous);
+            }
+        }
+        byLastActive.computeIfAbsent(time, t -> new HashSet<>()).add(uuid);
+    }
+
+    /**
+     * @return the players last seen at or before the cutoff
+     */
+    public synchronized Set<UUID> activeBefore(long cutoff) {
+        Set<UUID> players = new HashSet<>();
+        for (Set<UUID> bucket : byLastActive.headMap(cutoff, true).values()) {
+            players.addAll(bucket);
+        }
+        return players;
+    }
+
+    public synchronized void clear() {
+        byLastActive.clear();
+        lastActive.clear();
+    }
+}
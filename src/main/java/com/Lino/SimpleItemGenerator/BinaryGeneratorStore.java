@@ -0,0 +1,372 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * Persistenza binaria log-structured di un insieme di generatori (una regione, vedi BinaryRegionStore).
+ *
+ * name.dat e' uno snapshot compatto (tabelle di mondi e tipi + record a dimensione fissa),
+ * name.log e' un journal append-only di record place/remove/counter (il counter porta anche
+ * l'ultima generazione). Ogni salvataggio appende solo le modifiche avvenute dall'ultimo, in un
+ * frame con lunghezza e CRC32, quindi
+ * un frame troncato da un crash viene semplicemente scartato. Quando il log supera lo snapshot
+ * viene compattato: nuovo snapshot scritto su file temporaneo, rinominato atomicamente, log azzerato.
+ *
+ * I record sono idempotenti (place/counter impostano valori assoluti), quindi rigiocare un log
+ * gia' incluso nello snapshot e' innocuo.
+ */
+public class BinaryGeneratorStore {
+    private static final int MAGIC = 0x53494753; // "SIGS"
+    private static final int VERSION = 2;
+
+    // Versione 1 senza ultima generazione: solo in lettura
+    private static final byte OP_PLACE_V1 = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final byte OP_COUNTER_V1 = 3;
+    private static final byte OP_PLACE = 4;
+    private static final byte OP_COUNTER = 5;
+
+    private static final long MIN_COMPACT_BYTES = 256 * 1024;
+
+    private final Path snapshotFile;
+    private final Path tempSnapshotFile;
+    private final Path logFile;
+    private final Logger logger;
+
+    private long snapshotBytes;
+    private long logBytes;
+
+    public BinaryGeneratorStore(Path directory, String name, Logger logger) {
+        this.snapshotFile = directory.resolve(name + ".dat");
+        this.tempSnapshotFile = directory.resolve(name + ".dat.tmp");
+        this.logFile = directory.resolve(name + ".log");
+        this.logger = logger;
+    }
+
+    public boolean exists() {
+        return Files.exists(snapshotFile) || Files.exists(logFile);
+    }
+
+    /**
+     * Renames both files with the given suffix, e.g. after migrating them.
+     */
+    public synchronized void retire(String suffix) throws IOException {
+        if (Files.exists(snapshotFile)) {
+            Files.move(snapshotFile, snapshotFile.resolveSibling(snapshotFile.getFileName() + suffix),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (Files.exists(logFile)) {
+            Files.move(logFile, logFile.resolveSibling(logFile.getFileName() + suffix),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads the snapshot and replays the log on top of it.
+     */
+    public synchronized List<StoredGenerator> load() throws IOException {
+        Map<BlockKey, StoredGenerator> generators = new LinkedHashMap<>();
+        logBytes = 0;
+
+        if (Files.exists(snapshotFile)) {
+            snapshotBytes = Files.size(snapshotFile);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(FileChannel.open(snapshotFile, StandardOpenOption.READ)), 1 << 16))) {
+                for (StoredGenerator generator : readSnapshot(in)) {
+                    generators.put(BlockKey.of(generator), generator);
+                }
+            }
+        }
+
+        if (Files.exists(logFile)) {
+            replayLog(generators);
+        }
+
+        return new ArrayList<>(generators.values());
+    }
+
+    /**
+     * Appends the changes to the log as one frame, then compacts the log into a new
+     * snapshot if it has grown larger than the current one.
+     *
+     * @param fullState every generator of this store, only requested when compacting;
+     *                  may return null, and the log then keeps growing until a later call
+     */
+    public synchronized void append(List<GeneratorChange> changes, Supplier<List<StoredGenerator>> fullState) throws IOException {
+        if (!changes.isEmpty()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (GeneratorChange change : changes) {
+                writeRecord(out, change.getType(), change.getGenerator());
+            }
+
+            Files.createDirectories(logFile.getParent());
+            appendFrame(bytes.toByteArray());
+        }
+
+        if (logBytes > Math.max(MIN_COMPACT_BYTES, snapshotBytes)) {
+            List<StoredGenerator> generators = fullState.get();
+            // Stato completo non ancora disponibile: si compatta a un salvataggio successivo
+            if (generators != null) {
+                writeSnapshot(generators);
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces the snapshot with the given generators and empties the log.
+     * An empty set of generators deletes both files.
+     */
+    public synchronized void writeSnapshot(List<StoredGenerator> generators) throws IOException {
+        if (generators.isEmpty()) {
+            Files.deleteIfExists(snapshotFile);
+            Files.deleteIfExists(logFile);
+            snapshotBytes = 0;
+            logBytes = 0;
+            return;
+        }
+
+        Files.createDirectories(snapshotFile.getParent());
+
+        Map<String, Integer> worlds = new LinkedHashMap<>();
+        Map<String, Integer> types = new LinkedHashMap<>();
+        for (StoredGenerator generator : generators) {
+            worlds.putIfAbsent(generator.getWorld(), worlds.size());
+            types.putIfAbsent(generator.getType(), types.size());
+        }
+
+        try (FileChannel channel = FileChannel.open(tempSnapshotFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+
+            out.writeInt(worlds.size());
+            for (String world : worlds.keySet()) {
+                out.writeUTF(world);
+            }
+            out.writeInt(types.size());
+            for (String type : types.keySet()) {
+                out.writeUTF(type);
+            }
+
+            out.writeInt(generators.size());
+            for (StoredGenerator generator : generators) {
+                out.writeInt(worlds.get(generator.getWorld()));
+                out.writeInt(generator.getX());
+                out.writeInt(generator.getY());
+                out.writeInt(generator.getZ());
+                out.writeInt(types.get(generator.getType()));
+                out.writeLong(generator.getPlacer().getMostSignificantBits());
+                out.writeLong(generator.getPlacer().getLeastSignificantBits());
+                out.writeLong(generator.getItemsGenerated());
+                out.writeLong(generator.getLastGeneration());
+            }
+
+            out.flush();
+            channel.force(true);
+        }
+
+        Files.move(tempSnapshotFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        snapshotBytes = Files.size(snapshotFile);
+
+        // Il log e' ora contenuto nello snapshot
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+        logBytes = 0;
+    }
+
+    private List<StoredGenerator> readSnapshot(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a generator snapshot: " + snapshotFile);
+        }
+        int version = in.readInt();
+        if (version != 1 && version != VERSION) {
+            throw new IOException("Unsupported generator snapshot version " + version);
+        }
+
+        String[] worlds = new String[in.readInt()];
+        for (int i = 0; i < worlds.length; i++) {
+            worlds[i] = in.readUTF();
+        }
+        String[] types = new String[in.readInt()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = in.readUTF();
+        }
+
+        int count = in.readInt();
+        List<StoredGenerator> generators = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String world = worlds[in.readInt()];
+            int x = in.readInt();
+            int y = in.readInt();
+            int z = in.readInt();
+            String type = types[in.readInt()];
+            UUID placer = new UUID(in.readLong(), in.readLong());
+            StoredGenerator generator = new StoredGenerator(world, x, y, z, type, placer, in.readLong());
+            if (version >= 2) {
+                generator.setLastGeneration(in.readLong());
+            }
+            generators.add(generator);
+        }
+        return generators;
+    }
+
+    private void replayLog(Map<BlockKey, StoredGenerator> generators) throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+            long position = 0;
+
+            while (position < size) {
+                byte[] frame;
+                try {
+                    int length = in.readInt();
+                    int crc = in.readInt();
+                    if (length < 0 || position + 8 + length > size) break;
+
+                    frame = new byte[length];
+                    in.readFully(frame);
+                    if (crc(frame) != crc) break;
+                } catch (EOFException e) {
+                    break;
+                }
+
+                applyFrame(frame, generators);
+                position += 8 + frame.length;
+            }
+
+            // Frame finale incompleto (crash durante la scrittura): lo tronchiamo
+            if (position < size) {
+                logger.warning("Discarding " + (size - position) + " bytes of incomplete generator log");
+                channel.truncate(position);
+            }
+            logBytes = position;
+        }
+    }
+
+    private void applyFrame(byte[] frame, Map<BlockKey, StoredGenerator> generators) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+
+        while (in.available() > 0) {
+            byte op = in.readByte();
+            String world = in.readUTF();
+            int x = in.readInt();
+            int y = in.readInt();
+            int z = in.readInt();
+            BlockKey key = new BlockKey(world, x, y, z);
+
+            switch (op) {
+                case OP_PLACE_V1:
+                case OP_PLACE: {
+                    String type = in.readUTF();
+                    UUID placer = new UUID(in.readLong(), in.readLong());
+                    StoredGenerator generator = new StoredGenerator(world, x, y, z, type, placer, in.readLong());
+                    if (op == OP_PLACE) {
+                        generator.setLastGeneration(in.readLong());
+                    }
+                    generators.put(key, generator);
+                    break;
+                }
+                case OP_REMOVE:
+                    generators.remove(key);
+                    break;
+                case OP_COUNTER_V1:
+                case OP_COUNTER: {
+                    long itemsGenerated = in.readLong();
+                    long lastGeneration = op == OP_COUNTER ? in.readLong() : 0;
+                    StoredGenerator generator = generators.get(key);
+                    if (generator != null) {
+                        generator.setItemsGenerated(itemsGenerated);
+                        generator.setLastGeneration(lastGeneration);
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown generator log record " + op);
+            }
+        }
+    }
+
+    private void writeRecord(DataOutputStream out, GeneratorChange.Type type, StoredGenerator generator) throws IOException {
+        switch (type) {
+            case PLACE:
+                writePosition(out, OP_PLACE, generator);
+                out.writeUTF(generator.getType());
+                out.writeLong(generator.getPlacer().getMostSignificantBits());
+                out.writeLong(generator.getPlacer().getLeastSignificantBits());
+                out.writeLong(generator.getItemsGenerated());
+                out.writeLong(generator.getLastGeneration());
+                break;
+            case REMOVE:
+                writePosition(out, OP_REMOVE, generator);
+                break;
+            case COUNTER:
+                writePosition(out, OP_COUNTER, generator);
+                out.writeLong(generator.getItemsGenerated());
+                out.writeLong(generator.getLastGeneration());
+                break;
+        }
+    }
+
+    private void writePosition(DataOutputStream out, byte op, StoredGenerator generator) throws IOException {
+        out.writeByte(op);
+        out.writeUTF(generator.getWorld());
+        out.writeInt(generator.getX());
+        out.writeInt(generator.getY());
+        out.writeInt(generator.getZ());
+    }
+
+    private void appendFrame(byte[] payload) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + payload.length);
+        buffer.putInt(payload.length);
+        buffer.putInt(crc(payload));
+        buffer.put(payload);
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        logBytes += 8 + payload.length;
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private record BlockKey(String world, int x, int y, int z) {
+        static BlockKey of(StoredGenerator generator) {
+            return new BlockKey(generator.getWorld(), generator.getX(), generator.getY(), generator.getZ());
+        }
+    }
+}
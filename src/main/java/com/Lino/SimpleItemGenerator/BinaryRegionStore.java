@@ -0,0 +1,261 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Backend binario: un BinaryGeneratorStore per regione in generators/&lt;mondo&gt;/r.&lt;x&gt;.&lt;z&gt;.dat/.log,
+ * piu' owners.dat con il numero di generatori per proprietario (serve per i limiti senza
+ * leggere tutte le regioni). I dati dei giocatori restano in playerdata.yml.
+ */
+public class BinaryRegionStore implements GeneratorStore {
+    private static final int OWNERS_MAGIC = 0x5349474f; // "SIGO"
+
+    private final File dataFolder;
+    private final Logger logger;
+    private final Path folder;
+    private final Path ownersFile;
+    private final PlayerDataFile playerDataFile;
+
+    // Store aperti per le regioni in memoria, conservano le dimensioni di snapshot e log
+    private final Map<String, BinaryGeneratorStore> stores = new HashMap<>();
+
+    public BinaryRegionStore(File dataFolder, Logger logger) {
+        this.dataFolder = dataFolder;
+        this.logger = logger;
+        this.folder = dataFolder.toPath().resolve("generators");
+        this.ownersFile = folder.resolve("owners.dat");
+        this.playerDataFile = new PlayerDataFile(new File(dataFolder, "playerdata.yml"), logger);
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> open() throws IOException {
+        BinaryGeneratorStore legacyStore = new BinaryGeneratorStore(dataFolder.toPath(), "generators", logger);
+        File legacyYaml = new File(dataFolder, "data.yml");
+
+        if (Files.exists(ownersFile)) {
+            return readOwners();
+        }
+
+        if (legacyStore.exists()) {
+            Map<UUID, Integer> counts = importGenerators(legacyStore.load());
+            legacyStore.retire(".migrated");
+            return counts;
+        }
+
+        if (legacyYaml.exists()) {
+            Map<UUID, Integer> counts = importGenerators(YamlGeneratorStore.readGenerators(legacyYaml, logger));
+            if (!legacyYaml.renameTo(new File(dataFolder, "data.yml.migrated"))) {
+                logger.warning("Could not rename data.yml after migration");
+            }
+            return counts;
+        }
+
+        if (Files.isDirectory(folder)) {
+            // owners.dat perso: lo ricostruiamo leggendo tutte le regioni una volta
+            logger.warning("owners.dat is missing, rebuilding generator counts from region files");
+            Map<UUID, Integer> counts = countOwners(readAll());
+            saveOwnerCounts(counts);
+            return counts;
+        }
+
+        return new HashMap<>();
+    }
+
+    @Override
+    public synchronized List<StoredGenerator> loadRegion(String world, int regionX, int regionZ) throws IOException {
+        return store(world, regionX, regionZ).load();
+    }
+
+    @Override
+    public synchronized void saveRegion(String world, int regionX, int regionZ, List<GeneratorChange> changes,
+                                        Supplier<List<StoredGenerator>> fullState) throws IOException {
+        store(world, regionX, regionZ).append(changes, fullState);
+    }
+
+    @Override
+    public synchronized void unloadRegion(String world, int regionX, int regionZ) {
+        stores.remove(regionName(world, regionX, regionZ));
+    }
+
+    @Override
+    public synchronized void saveOwnerCounts(Map<UUID, Integer> counts) throws IOException {
+        Files.createDirectories(folder);
+        Path tempFile = folder.resolve("owners.dat.tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(OWNERS_MAGIC);
+            out.writeInt(counts.size());
+            for (Map.Entry<UUID, Integer> entry : counts.entrySet()) {
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                out.writeInt(entry.getValue());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tempFile, ownersFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Rewrites only the region files that lose generators. Without an index by owner or type on
+     * disk every region of the filtered worlds is read, but never more than one at a time.
+     */
+    @Override
+    public synchronized Map<UUID, Integer> purge(StoredGeneratorFilter filter) throws IOException {
+        Map<UUID, Integer> removed = new HashMap<>();
+        if (!Files.isDirectory(folder)) return removed;
+
+        try (DirectoryStream<Path> worlds = Files.newDirectoryStream(folder, Files::isDirectory)) {
+            for (Path world : worlds) {
+                String worldName = world.getFileName().toString();
+                for (String name : regionFiles(world)) {
+                    String[] parts = name.split("\\.");
+                    int regionX;
+                    int regionZ;
+                    try {
+                        regionX = Integer.parseInt(parts[1]);
+                        regionZ = Integer.parseInt(parts[2]);
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                        continue;
+                    }
+                    if (!filter.matchesRegion(worldName, regionX, regionZ)) continue;
+
+                    BinaryGeneratorStore store = new BinaryGeneratorStore(world, name, logger);
+                    List<StoredGenerator> stored = store.load();
+                    List<StoredGenerator> kept = new ArrayList<>(stored.size());
+                    for (StoredGenerator generator : stored) {
+                        if (filter.matches(generator)) {
+                            removed.merge(generator.getPlacer(), 1, Integer::sum);
+                        } else {
+                            kept.add(generator);
+                        }
+                    }
+                    if (kept.size() < stored.size()) {
+                        store.writeSnapshot(kept);
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public Map<UUID, PlayerData> loadPlayers() {
+        return playerDataFile.load();
+    }
+
+    @Override
+    public void savePlayers(Collection<PlayerData> players) throws IOException {
+        playerDataFile.save(players);
+    }
+
+    @Override
+    public synchronized void close() {
+        stores.clear();
+    }
+
+    /**
+     * Reads every region file. Only used for migrations and repairs.
+     */
+    public synchronized List<StoredGenerator> readAll() throws IOException {
+        List<StoredGenerator> generators = new ArrayList<>();
+        if (!Files.isDirectory(folder)) return generators;
+
+        try (DirectoryStream<Path> worlds = Files.newDirectoryStream(folder, Files::isDirectory)) {
+            for (Path world : worlds) {
+                for (String name : regionFiles(world)) {
+                    generators.addAll(new BinaryGeneratorStore(world, name, logger).load());
+                }
+            }
+        }
+        return generators;
+    }
+
+    // r.<x>.<z> per ogni regione del mondo con uno snapshot o un log
+    private static List<String> regionFiles(Path world) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(world, "r.*.{dat,log}")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                name = name.substring(0, name.length() - 4);
+                if (!names.contains(name)) names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private Map<UUID, Integer> importGenerators(List<StoredGenerator> generators) throws IOException {
+        Map<String, List<StoredGenerator>> byRegion = new HashMap<>();
+        for (StoredGenerator generator : generators) {
+            byRegion.computeIfAbsent(regionName(generator.getWorld(),
+                    RegionManager.regionOf(generator.getX()), RegionManager.regionOf(generator.getZ())),
+                    k -> new ArrayList<>()).add(generator);
+        }
+
+        for (List<StoredGenerator> region : byRegion.values()) {
+            StoredGenerator first = region.get(0);
+            store(first.getWorld(), RegionManager.regionOf(first.getX()), RegionManager.regionOf(first.getZ()))
+                    .writeSnapshot(region);
+        }
+        stores.clear();
+
+        Map<UUID, Integer> counts = countOwners(generators);
+        saveOwnerCounts(counts);
+        logger.info("Migrated " + generators.size() + " generators into " + folder.getFileName() + "/");
+        return counts;
+    }
+
+    private BinaryGeneratorStore store(String world, int regionX, int regionZ) {
+        return stores.computeIfAbsent(regionName(world, regionX, regionZ),
+                name -> new BinaryGeneratorStore(folder.resolve(world), "r." + regionX + "." + regionZ, logger));
+    }
+
+    private static String regionName(String world, int regionX, int regionZ) {
+        return world + "/r." + regionX + "." + regionZ;
+    }
+
+    static Map<UUID, Integer> countOwners(List<StoredGenerator> generators) {
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (StoredGenerator generator : generators) {
+            counts.merge(generator.getPlacer(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private Map<UUID, Integer> readOwners() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(ownersFile, StandardOpenOption.READ))))) {
+            if (in.readInt() != OWNERS_MAGIC) {
+                throw new IOException("Not an owner count file: " + ownersFile);
+            }
+
+            int size = in.readInt();
+            Map<UUID, Integer> counts = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                counts.put(new UUID(in.readLong(), in.readLong()), in.readInt());
+            }
+            return counts;
+        }
+    }
+}
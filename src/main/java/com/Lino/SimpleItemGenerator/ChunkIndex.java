@@ -0,0 +1,167 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indice dei generatori per chunk, aggiornato dagli eventi ChunkLoad/ChunkUnload.
+ * La chiave e' un long che impacchetta id del mondo, chunkX e chunkZ (vedi WorldIds),
+ * cosi' nessun controllo richiede getChunk() e non si caricano chunk per sbaglio.
+ * Anche quali chunk sono caricati arriva dagli eventi, non da World.isChunkLoaded, che su Folia
+ * non si puo' chiamare dal thread globale dove si applicano le regioni lette.
+ *
+ * Sincronizzato: su Folia lo aggiornano i thread di regione e il thread globale.
+ */
+public class ChunkIndex {
+    private final WorldIds worldIds;
+    private final Map<Long, ChunkBucket> buckets = new HashMap<>();
+    private final Set<Long> loadedChunks = new HashSet<>();
+
+    public ChunkIndex(WorldIds worldIds) {
+        this.worldIds = worldIds;
+    }
+
+    /**
+     * Adds the generator to its chunk bucket.
+     *
+     * @return true if the chunk is currently loaded
+     */
+    public synchronized boolean add(GeneratorData data) {
+        Location loc = data.getLocation();
+        ChunkBucket bucket = buckets.computeIfAbsent(
+                worldIds.chunkKey(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4),
+                key -> new ChunkBucket(loadedChunks.contains(key)));
+        bucket.generators.add(data);
+        return bucket.loaded;
+    }
+
+    public synchronized void remove(GeneratorData data) {
+        Location loc = data.getLocation();
+        long key = worldIds.chunkKey(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+
+        ChunkBucket bucket = buckets.get(key);
+        if (bucket == null) return;
+
+        bucket.generators.remove(data);
+        if (bucket.generators.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Marks the chunk as loaded.
+     *
+     * @return the generators in the chunk that have just become active
+     */
+    public synchronized List<GeneratorData> chunkLoaded(Chunk chunk) {
+        return setLoaded(chunk, true);
+    }
+
+    /**
+     * Marks the chunk as unloaded.
+     *
+     * @return the generators in the chunk that have just become inactive
+     */
+    public synchronized List<GeneratorData> chunkUnloaded(Chunk chunk) {
+        return setLoaded(chunk, false);
+    }
+
+    /**
+     * Marks every chunk of the world as unloaded.
+     *
+     * @return the generators that have just become inactive
+     */
+    public synchronized List<GeneratorData> worldUnloaded(World world) {
+        int worldId = worldIds.find(world);
+        if (worldId < 0) return Collections.emptyList();
+
+        loadedChunks.removeIf(key -> WorldIds.worldOf(key) == worldId);
+        List<GeneratorData> deactivated = new ArrayList<>();
+        for (Map.Entry<Long, ChunkBucket> entry : buckets.entrySet()) {
+            ChunkBucket bucket = entry.getValue();
+            if (bucket.loaded && WorldIds.worldOf(entry.getKey()) == worldId) {
+                bucket.loaded = false;
+                deactivated.addAll(bucket.generators);
+            }
+        }
+        return deactivated;
+    }
+
+    public synchronized boolean isLoaded(GeneratorData data) {
+        Location loc = data.getLocation();
+        ChunkBucket bucket = buckets.get(worldIds.chunkKey(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4));
+        return bucket != null && bucket.loaded;
+    }
+
+    /**
+     * @return the generators in the chunks of the given rectangle of the world, loaded or not
+     */
+    public synchronized List<GeneratorData> getGenerators(World world, int minChunkX, int maxChunkX,
+                                                          int minChunkZ, int maxChunkZ) {
+        int worldId = worldIds.find(world);
+        if (worldId < 0) return Collections.emptyList();
+
+        List<GeneratorData> generators = new ArrayList<>();
+        long area = ((long) maxChunkX - minChunkX + 1) * ((long) maxChunkZ - minChunkZ + 1);
+        if (area <= buckets.size()) {
+            for (int x = minChunkX; x <= maxChunkX; x++) {
+                for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                    ChunkBucket bucket = buckets.get(WorldIds.chunkKey(worldId, x, z));
+                    if (bucket != null) generators.addAll(bucket.generators);
+                }
+            }
+            return generators;
+        }
+
+        // Area piu' grande dei chunk con generatori (es. un mondo intero): si scorrono i bucket
+        for (Map.Entry<Long, ChunkBucket> entry : buckets.entrySet()) {
+            long key = entry.getKey();
+            int x = WorldIds.chunkX(key);
+            int z = WorldIds.chunkZ(key);
+            if (WorldIds.worldOf(key) == worldId && x >= minChunkX && x <= maxChunkX
+                    && z >= minChunkZ && z <= maxChunkZ) {
+                generators.addAll(entry.getValue().generators);
+            }
+        }
+        return generators;
+    }
+
+    public synchronized void clear() {
+        buckets.clear();
+        loadedChunks.clear();
+    }
+
+    private List<GeneratorData> setLoaded(Chunk chunk, boolean loaded) {
+        long key = worldIds.chunkKey(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        if (loaded) {
+            loadedChunks.add(key);
+        } else {
+            loadedChunks.remove(key);
+        }
+
+        ChunkBucket bucket = buckets.get(key);
+        if (bucket == null || bucket.loaded == loaded) return Collections.emptyList();
+
+        bucket.loaded = loaded;
+        // Copia fatta sotto il lock: il chiamante la scorre mentre altre regioni cambiano il bucket
+        return new ArrayList<>(bucket.generators);
+    }
+
+    private static class ChunkBucket {
+        private final List<GeneratorData> generators = new ArrayList<>(4);
+        private boolean loaded;
+
+        private ChunkBucket(boolean loaded) {
+            this.loaded = loaded;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Registrato in onEnable prima che lo storage sia aperto: fino ad allora le regioni dei chunk
+ * restano in StartupChunks, l'indice dei chunk si aggiorna subito.
+ */
+public class ChunkListener implements Listener {
+    private final SimpleItemGenerator plugin;
+    private final StartupChunks startupChunks;
+
+    public ChunkListener(SimpleItemGenerator plugin, StartupChunks startupChunks) {
+        this.plugin = plugin;
+        this.startupChunks = startupChunks;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent e) {
+        if (startupChunks.loaded(e.getChunk())) {
+            plugin.getGeneratorStore().chunkLoaded(e.getChunk());
+        }
+        plugin.activateGenerators(plugin.getChunkIndex().chunkLoaded(e.getChunk()));
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkUnload(ChunkUnloadEvent e) {
+        plugin.deactivateGenerators(plugin.getChunkIndex().chunkUnloaded(e.getChunk()));
+        if (startupChunks.unloaded(e.getChunk())) {
+            plugin.getGeneratorStore().chunkUnloaded(e.getChunk());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onWorldUnload(WorldUnloadEvent e) {
+        if (e.isCancelled()) return;
+
+        plugin.deactivateGenerators(plugin.getChunkIndex().worldUnloaded(e.getWorld()));
+        if (startupChunks.worldUnloaded(e.getWorld())) {
+            plugin.getGeneratorStore().worldUnloaded(e.getWorld());
+        }
+    }
+}
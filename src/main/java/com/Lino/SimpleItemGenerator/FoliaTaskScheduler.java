@@ -0,0 +1,142 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Folia: i task di regione vanno al RegionScheduler, quelli globali al GlobalRegionScheduler.
+ *
+ * Il plugin compila contro spigot-api, quindi le API di Folia si raggiungono per reflection;
+ * i metodi vengono risolti una volta sola nel costruttore.
+ */
+public class FoliaTaskScheduler implements TaskScheduler {
+    private static final String SCHEDULER_PACKAGE = "io.papermc.paper.threadedregions.scheduler.";
+
+    private final Plugin plugin;
+    private final Object globalScheduler;
+    private final Object regionScheduler;
+    private final Object asyncScheduler;
+
+    private final Method globalExecute;
+    private final Method globalAtFixedRate;
+    private final Method regionExecute;
+    private final Method regionAtFixedRate;
+    private final Method asyncAtFixedRate;
+    private final Method cancel;
+    private final Method isOwnedByCurrentRegion;
+
+    public static boolean isSupported() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    public FoliaTaskScheduler(Plugin plugin) {
+        this.plugin = plugin;
+
+        try {
+            Server server = Bukkit.getServer();
+            Class<?> globalClass = Class.forName(SCHEDULER_PACKAGE + "GlobalRegionScheduler");
+            Class<?> regionClass = Class.forName(SCHEDULER_PACKAGE + "RegionScheduler");
+            Class<?> asyncClass = Class.forName(SCHEDULER_PACKAGE + "AsyncScheduler");
+
+            globalScheduler = Server.class.getMethod("getGlobalRegionScheduler").invoke(server);
+            regionScheduler = Server.class.getMethod("getRegionScheduler").invoke(server);
+            asyncScheduler = Server.class.getMethod("getAsyncScheduler").invoke(server);
+
+            globalExecute = globalClass.getMethod("execute", Plugin.class, Runnable.class);
+            globalAtFixedRate = globalClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class,
+                    long.class, long.class);
+            regionExecute = regionClass.getMethod("execute", Plugin.class, World.class, int.class, int.class,
+                    Runnable.class);
+            regionAtFixedRate = regionClass.getMethod("runAtFixedRate", Plugin.class, World.class, int.class,
+                    int.class, Consumer.class, long.class, long.class);
+            asyncAtFixedRate = asyncClass.getMethod("runAtFixedRate", Plugin.class, Consumer.class,
+                    long.class, long.class, TimeUnit.class);
+            cancel = Class.forName(SCHEDULER_PACKAGE + "ScheduledTask").getMethod("cancel");
+            isOwnedByCurrentRegion = Server.class.getMethod("isOwnedByCurrentRegion", World.class,
+                    int.class, int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Unsupported Folia scheduler API", e);
+        }
+    }
+
+    @Override
+    public boolean isRegionThreaded() {
+        return true;
+    }
+
+    @Override
+    public void runGlobal(Runnable task) {
+        invoke(globalExecute, globalScheduler, plugin, task);
+    }
+
+    @Override
+    public Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        // Folia non accetta un ritardo iniziale di 0 tick
+        return wrap(invoke(globalAtFixedRate, globalScheduler, plugin, consumer(task),
+                Math.max(1, delayTicks), periodTicks));
+    }
+
+    @Override
+    public Task runAsyncTimer(Runnable task, long delayTicks, long periodTicks) {
+        return wrap(invoke(asyncAtFixedRate, asyncScheduler, plugin, consumer(task),
+                delayTicks * 50, periodTicks * 50, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void runAt(Location location, Runnable task) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+
+        if (isOwnedByCurrentThread(world, chunkX, chunkZ)) {
+            task.run();
+        } else {
+            invoke(regionExecute, regionScheduler, plugin, world, chunkX, chunkZ, task);
+        }
+    }
+
+    @Override
+    public Task runAtTimer(World world, int chunkX, int chunkZ, Runnable task, long delayTicks, long periodTicks) {
+        return wrap(invoke(regionAtFixedRate, regionScheduler, plugin, world, chunkX, chunkZ, consumer(task),
+                Math.max(1, delayTicks), periodTicks));
+    }
+
+    @Override
+    public boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ) {
+        return (Boolean) invoke(isOwnedByCurrentRegion, Bukkit.getServer(), world, chunkX, chunkZ);
+    }
+
+    private Task wrap(Object scheduledTask) {
+        return () -> invoke(cancel, scheduledTask);
+    }
+
+    private static Consumer<Object> consumer(Runnable task) {
+        return scheduledTask -> task.run();
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            if (cause instanceof Error error) throw error;
+            throw new IllegalStateException(cause);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Motore di generazione diviso in partizioni, ognuna con il proprio GeneratorScheduler.
+ *
+ * Su Folia una partizione e' una sezione di 16x16 chunk, che Folia non divide mai tra due regioni:
+ * ogni partizione ha un task sul RegionScheduler e le regioni generano in parallelo.
+ * Altrove c'e' una sola partizione servita dal task globale, come prima.
+ */
+public class GenerationEngine {
+    // 4 bit di chunk + 4 bit di sezione
+    private static final int PARTITION_SHIFT = 8;
+    private static final long PERIOD_TICKS = 4L;
+    private static final long GLOBAL_PARTITION = 0L;
+
+    private final TaskScheduler tasks;
+    private final WorldIds worldIds;
+    private final GeneratorMetrics metrics;
+    private final TickBudget budget;
+    private final ObjLongConsumer<GeneratorData> runner;
+    private final IntSupplier activeGenerators;
+    private final boolean partitioned;
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+    private final AtomicInteger scheduled = new AtomicInteger();
+    private volatile boolean running;
+
+    /**
+     * @param budget the time each run may spend generating
+     * @param runner generates for a due generator at the given time, and schedules it again
+     * @param activeGenerators the number of generators in memory, for the metrics
+     */
+    public GenerationEngine(TaskScheduler tasks, WorldIds worldIds, GeneratorMetrics metrics, TickBudget budget,
+                            ObjLongConsumer<GeneratorData> runner, IntSupplier activeGenerators) {
+        this.tasks = tasks;
+        this.worldIds = worldIds;
+        this.metrics = metrics;
+        this.budget = budget;
+        this.runner = runner;
+        this.activeGenerators = activeGenerators;
+        this.partitioned = tasks.isRegionThreaded();
+
+        if (!partitioned) {
+            partitions.put(GLOBAL_PARTITION, new Partition(GLOBAL_PARTITION, null, 0, 0));
+        }
+    }
+
+    public void start() {
+        running = true;
+        for (Partition partition : partitions.values()) {
+            partition.start();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        for (Partition partition : partitions.values()) {
+            partition.stop();
+        }
+    }
+
+    public void schedule(GeneratorData data) {
+        while (true) {
+            Partition partition = partitionOf(data, true);
+            synchronized (partition) {
+                if (partition.closed) continue;
+
+                if (data.getHeapIndex() < 0) {
+                    scheduled.incrementAndGet();
+                }
+                partition.heap.schedule(data);
+                return;
+            }
+        }
+    }
+
+    public void unschedule(GeneratorData data) {
+        if (data.getHeapIndex() < 0) return;
+
+        Partition partition = partitionOf(data, false);
+        if (partition == null) return;
+
+        synchronized (partition) {
+            if (data.getHeapIndex() < 0) return;
+
+            partition.heap.unschedule(data);
+            scheduled.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gives the generators a new configuration and moves the scheduled ones to their new deadline.
+     * Each partition is updated on the thread that runs it and under its lock, so a generator is
+     * never changed while its heap is being polled.
+     */
+    public void reconfigure(Collection<GeneratorData> generators, GeneratorConfig config) {
+        Map<Long, List<GeneratorData>> byPartition = new HashMap<>();
+        for (GeneratorData data : generators) {
+            byPartition.computeIfAbsent(partitionKey(data), k -> new ArrayList<>()).add(data);
+        }
+
+        for (List<GeneratorData> group : byPartition.values()) {
+            tasks.runAt(group.get(0).getLocation(), () -> {
+                for (GeneratorData data : group) {
+                    reconfigure(data, config);
+                }
+            });
+        }
+    }
+
+    private void reconfigure(GeneratorData data, GeneratorConfig config) {
+        Partition partition = partitionOf(data, false);
+        if (partition == null) {
+            // Non schedulato: nessuno heap da aggiornare
+            data.setConfig(config);
+            return;
+        }
+
+        synchronized (partition) {
+            data.setConfig(config);
+            if (data.getHeapIndex() >= 0) {
+                partition.heap.schedule(data);
+            }
+        }
+    }
+
+    public void clear() {
+        for (Partition partition : partitions.values()) {
+            synchronized (partition) {
+                partition.heap.clear();
+            }
+        }
+        scheduled.set(0);
+    }
+
+    public int size() {
+        return scheduled.get();
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    private long partitionKey(GeneratorData data) {
+        if (!partitioned) return GLOBAL_PARTITION;
+
+        Location loc = data.getLocation();
+        return WorldIds.chunkKey(worldIds.id(loc.getWorld()),
+                loc.getBlockX() >> PARTITION_SHIFT, loc.getBlockZ() >> PARTITION_SHIFT);
+    }
+
+    private Partition partitionOf(GeneratorData data, boolean create) {
+        long key = partitionKey(data);
+        if (!create || !partitioned) return partitions.get(key);
+
+        Location loc = data.getLocation();
+        return partitions.computeIfAbsent(key, k -> {
+            Partition partition = new Partition(k, loc.getWorld(),
+                    loc.getBlockX() >> PARTITION_SHIFT, loc.getBlockZ() >> PARTITION_SHIFT);
+            if (running) partition.start();
+            return partition;
+        });
+    }
+
+    private void tick(Partition partition) {
+        long start = System.nanoTime();
+        long currentTime = System.currentTimeMillis();
+        long allowed = budget.nanos();
+        long deadline = allowed == Long.MAX_VALUE ? Long.MAX_VALUE : start + allowed;
+        int due;
+
+        synchronized (partition) {
+            // pollDue toglie i generatori scaduti dallo heap, schedule() li riconta quando tornano.
+            // A budget finito i piu' in ritardo restano in cima allo heap e ripartono al prossimo giro
+            due = partition.heap.pollDue(currentTime, deadline, data -> runner.accept(data, currentTime));
+            scheduled.addAndGet(-due);
+            if (partition.heap.hasDue(currentTime)) {
+                metrics.increment(GeneratorMetrics.Counter.BUDGET_EXHAUSTED);
+            }
+
+            // Sezione senza piu' generatori: il task si ferma, ne verra' creato uno nuovo se serve
+            if (partitioned && partition.heap.size() == 0) {
+                partition.closed = true;
+                partition.stop();
+                partitions.remove(partition.key, partition);
+            }
+        }
+
+        metrics.record(GeneratorMetrics.Timer.GLOBAL_TASK, System.nanoTime() - start);
+        metrics.increment(GeneratorMetrics.Counter.TASK_RUNS);
+        metrics.add(GeneratorMetrics.Counter.GENERATORS_DUE, due);
+        metrics.set(GeneratorMetrics.Gauge.SCHEDULED_GENERATORS, scheduled.get());
+        metrics.set(GeneratorMetrics.Gauge.ACTIVE_GENERATORS, activeGenerators.getAsInt());
+        metrics.set(GeneratorMetrics.Gauge.TICK_BUDGET, allowed == Long.MAX_VALUE ? 0 : allowed / 1000);
+    }
+
+    private final class Partition {
+        private final long key;
+        private final World world;
+        private final int sectionX;
+        private final int sectionZ;
+        private final GeneratorScheduler heap = new GeneratorScheduler();
+        private TaskScheduler.Task task;
+        private boolean closed;
+
+        private Partition(long key, World world, int sectionX, int sectionZ) {
+            this.key = key;
+            this.world = world;
+            this.sectionX = sectionX;
+            this.sectionZ = sectionZ;
+        }
+
+        private synchronized void start() {
+            if (task != null) return;
+
+            if (world == null) {
+                task = tasks.runGlobalTimer(() -> tick(this), 20L, PERIOD_TICKS);
+            } else {
+                task = tasks.runAtTimer(world, sectionX << 4, sectionZ << 4, () -> tick(this),
+                        PERIOD_TICKS, PERIOD_TICKS);
+            }
+        }
+
+        private synchronized void stop() {
+            if (task != null) {
+                task.cancel();
+                task = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Blocchi occupati da un generatore caricato, come bitset di 4096 bit per sezione 16x16x16
+ * di chunk. Le liste di blocchi di esplosioni e pistoni si controllano con un test di bit
+ * per blocco, senza creare Location; i blocchi di un chunk senza generatori costano una lookup
+ * per chunk, non per blocco.
+ *
+ * Sincronizzato come ChunkIndex: su Folia gli eventi arrivano dai thread di regione.
+ */
+public class GeneratorBlocks {
+    private final WorldIds worldIds;
+    private final Map<Long, ChunkBits> chunks = new HashMap<>();
+
+    public GeneratorBlocks(WorldIds worldIds) {
+        this.worldIds = worldIds;
+    }
+
+    public synchronized void add(Location loc) {
+        long key = worldIds.chunkKey(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        chunks.computeIfAbsent(key, k -> new ChunkBits()).set(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+    }
+
+    public synchronized void remove(Location loc) {
+        int worldId = worldIds.find(loc.getWorld());
+        if (worldId < 0) return;
+
+        long key = WorldIds.chunkKey(worldId, loc.getBlockX() >> 4, loc.getBlockZ() >> 4);
+        ChunkBits bits = chunks.get(key);
+        if (bits != null && bits.clear(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ())) {
+            chunks.remove(key);
+        }
+    }
+
+    public synchronized boolean contains(Block block) {
+        int worldId = worldIds.find(block.getWorld());
+        if (worldId < 0) return false;
+
+        ChunkBits bits = chunks.get(WorldIds.chunkKey(worldId, block.getX() >> 4, block.getZ() >> 4));
+        return bits != null && bits.get(block.getX(), block.getY(), block.getZ());
+    }
+
+    /**
+     * @return whether any of the blocks, all in the given world, is a generator
+     */
+    public synchronized boolean containsAny(World world, List<Block> blocks) {
+        return firstIndex(world, blocks) >= 0;
+    }
+
+    /**
+     * Removes the generator blocks from the list, e.g. an explosion's block list.
+     * Lists without generators are only scanned.
+     */
+    public synchronized void removeFrom(World world, List<Block> blocks) {
+        int first = firstIndex(world, blocks);
+        if (first < 0) return;
+
+        int worldId = worldIds.find(world);
+        for (int i = blocks.size() - 1; i >= first; i--) {
+            Block block = blocks.get(i);
+            ChunkBits bits = chunks.get(WorldIds.chunkKey(worldId, block.getX() >> 4, block.getZ() >> 4));
+            if (bits != null && bits.get(block.getX(), block.getY(), block.getZ())) {
+                blocks.remove(i);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        chunks.clear();
+    }
+
+    private int firstIndex(World world, List<Block> blocks) {
+        if (chunks.isEmpty() || blocks.isEmpty()) return -1;
+
+        int worldId = worldIds.find(world);
+        if (worldId < 0) return -1;
+
+        // I blocchi di un'esplosione o di un pistone stanno in pochi chunk: la mappa si
+        // interroga solo quando il chunk cambia
+        int lastX = Integer.MIN_VALUE;
+        int lastZ = Integer.MIN_VALUE;
+        ChunkBits bits = null;
+        for (int i = 0, size = blocks.size(); i < size; i++) {
+            Block block = blocks.get(i);
+            int x = block.getX();
+            int z = block.getZ();
+            if (x >> 4 != lastX || z >> 4 != lastZ) {
+                lastX = x >> 4;
+                lastZ = z >> 4;
+                bits = chunks.get(WorldIds.chunkKey(worldId, lastX, lastZ));
+            }
+            if (bits != null && bits.get(x, block.getY(), z)) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Le sezioni con almeno un generatore di un chunk: di solito una o due, quindi una ricerca lineare.
+     */
+    private static final class ChunkBits {
+        private static final int WORDS = 4096 / 64;
+
+        private int[] sectionYs = new int[1];
+        private long[][] sections = new long[1][];
+        private int count;
+
+        private boolean get(int x, int y, int z) {
+            long[] words = section(y >> 4);
+            if (words == null) return false;
+
+            int bit = index(x, y, z);
+            return (words[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        private void set(int x, int y, int z) {
+            long[] words = section(y >> 4);
+            if (words == null) {
+                if (count == sections.length) {
+                    sectionYs = Arrays.copyOf(sectionYs, count * 2);
+                    sections = Arrays.copyOf(sections, count * 2);
+                }
+                words = new long[WORDS];
+                sectionYs[count] = y >> 4;
+                sections[count++] = words;
+            }
+
+            int bit = index(x, y, z);
+            words[bit >>> 6] |= 1L << bit;
+        }
+
+        /**
+         * @return true if the chunk has no generator blocks left
+         */
+        private boolean clear(int x, int y, int z) {
+            int sectionY = y >> 4;
+            for (int i = 0; i < count; i++) {
+                if (sectionYs[i] != sectionY) continue;
+
+                long[] words = sections[i];
+                int bit = index(x, y, z);
+                words[bit >>> 6] &= ~(1L << bit);
+
+                if (isEmpty(words)) {
+                    // Sposta l'ultima sezione al posto di quella vuota
+                    count--;
+                    sectionYs[i] = sectionYs[count];
+                    sections[i] = sections[count];
+                    sections[count] = null;
+                }
+                break;
+            }
+            return count == 0;
+        }
+
+        private long[] section(int sectionY) {
+            for (int i = 0; i < count; i++) {
+                if (sectionYs[i] == sectionY) return sections[i];
+            }
+            return null;
+        }
+
+        private static boolean isEmpty(long[] words) {
+            for (long word : words) {
+                if (word != 0) return false;
+            }
+            return true;
+        }
+
+        // y, z, x di 4 bit ciascuno dentro la sezione
+        private static int index(int x, int y, int z) {
+            return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.Lino.SimpleItemGenerator;
+
+/**
+ * Una modifica a un generatore da persistere, catturata sul main thread al momento in cui avviene.
+ */
+public class GeneratorChange {
+    public enum Type { PLACE, REMOVE, COUNTER }
+
+    private final Type type;
+    private final StoredGenerator generator;
+
+    public GeneratorChange(Type type, StoredGenerator generator) {
+        this.type = type;
+        this.generator = generator;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public StoredGenerator getGenerator() {
+        return generator;
+    }
+}
@@ -8,24 +8,49 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.random.RandomGenerator;
 
 public class GeneratorConfig {
+    public enum OutputMode { DROP, CONTAINER }
+
     private final int cooldown;
     private final Material blockType;
     private final String displayName;
     private final boolean particles;
-    private final List<ItemStack> items = new ArrayList<>();
+    private final LootTable lootTable;
     private final List<ItemStack> possibleItems = new ArrayList<>();
-    private final Random random = new Random();
+
+    // Con "random-seed" ogni thread usa un SplittableRandom derivato dal seed: drop riproducibili
+    private final SplittableRandom seedRoot;
+    private final ThreadLocal<SplittableRandom> seededRandom;
 
     // New configurations
     private final String permission;
     private final boolean dropNaturally;
 
+    // Output settings
+    private final OutputMode outputMode;
+    private final int outputBufferSize;
+    private final int outputFlushInterval;
+
+    // Cicli recuperati al massimo dopo il caricamento del chunk, -1 = valore di general.catch-up
+    private final int catchUpMaxCycles;
+
+    // Chunk di distanza entro cui serve un giocatore online perche' il generatore produca, 0 = sempre
+    private final int activationRadius;
+
+    // Tutti i valori della sezione: un reload aggiorna i generatori solo se cambiano
+    private final Map<String, Object> definition;
+
     public GeneratorConfig(ConfigurationSection config) {
         this.cooldown = config.getInt("cooldown", 30);
         this.blockType = Material.valueOf(config.getString("block-type", "LODESTONE"));
@@ -36,12 +61,39 @@ public class GeneratorConfig {
         this.permission = config.getString("permission", "");
         this.dropNaturally = config.getBoolean("drop-naturally", true);
 
+        this.outputMode = OutputMode.valueOf(config.getString("output.mode", "DROP").toUpperCase());
+        this.outputBufferSize = Math.max(1, config.getInt("output.buffer-size", 8));
+        this.outputFlushInterval = Math.max(0, config.getInt("output.flush-interval", 10));
+        this.catchUpMaxCycles = config.getInt("catch-up.max-cycles", -1);
+        this.activationRadius = Math.max(0, config.getInt("activation-radius", 0));
+
+        if (config.contains("random-seed")) {
+            this.seedRoot = new SplittableRandom(config.getLong("random-seed"));
+            this.seededRandom = ThreadLocal.withInitial(this::splitSeed);
+        } else {
+            this.seedRoot = null;
+            this.seededRandom = null;
+        }
+
         // Load items
-        loadItems(config.getConfigurationSection("items"));
+        this.lootTable = loadItems(config.getConfigurationSection("items"));
+        this.definition = readDefinition(config);
+    }
+
+    private static Map<String, Object> readDefinition(ConfigurationSection config) {
+        Map<String, Object> values = new HashMap<>();
+        for (Map.Entry<String, Object> entry : config.getValues(true).entrySet()) {
+            // Le sottosezioni non hanno un equals utile, i loro valori sono gia' nella mappa
+            if (!(entry.getValue() instanceof ConfigurationSection)) {
+                values.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(values);
     }
 
-    private void loadItems(ConfigurationSection itemsSection) {
-        if (itemsSection == null) return;
+    private LootTable loadItems(ConfigurationSection itemsSection) {
+        LootTable.Builder builder = LootTable.builder();
+        if (itemsSection == null) return builder.build();
 
         for (String key : itemsSection.getKeys(false)) {
             try {
@@ -51,16 +103,21 @@ public class GeneratorConfig {
                 if (item != null) {
                     possibleItems.add(item.clone());
 
-                    int weight = itemSec.getInt("weight", 1);
-                    for (int i = 0; i < weight; i++) {
-                        items.add(item);
-                    }
+                    builder.add(item, itemSec.getDouble("weight", 1));
                 }
             } catch (Exception e) {
                 Logger.getLogger("SimpleItemGenerator").log(Level.WARNING,
                         "Failed to load item: " + key, e);
             }
         }
+
+        return builder.build();
+    }
+
+    private SplittableRandom splitSeed() {
+        synchronized (seedRoot) {
+            return seedRoot.split();
+        }
     }
 
     private ItemStack createItemFromConfig(ConfigurationSection itemSec) {
@@ -166,19 +223,56 @@ public class GeneratorConfig {
     }
 
     public ItemStack getRandomItem() {
-        if (items.isEmpty()) return null;
+        return getRandomItem(seededRandom != null ? seededRandom.get() : ThreadLocalRandom.current());
+    }
 
-        ItemStack item = items.get(random.nextInt(items.size())).clone();
+    /**
+     * Samples with the given generator, e.g. a seeded one in benchmarks.
+     */
+    public ItemStack getRandomItem(RandomGenerator random) {
+        ItemStack item = lootTable.sample(random);
+        return item != null ? item.clone() : null;
+    }
 
-        return item;
+    /**
+     * Samples the output of several generations at once, merged into as few stacks as possible.
+     */
+    public List<ItemStack> getRandomItems(int generations) {
+        RandomGenerator random = seededRandom != null ? seededRandom.get() : ThreadLocalRandom.current();
+
+        // Si contano le estrazioni per template, gli stack vengono creati solo alla fine
+        Map<ItemStack, Long> amounts = new IdentityHashMap<>();
+        for (int i = 0; i < generations; i++) {
+            ItemStack template = lootTable.sample(random);
+            if (template == null) break;
+            amounts.merge(template, (long) template.getAmount(), Long::sum);
+        }
+
+        List<ItemStack> stacks = new ArrayList<>();
+        for (Map.Entry<ItemStack, Long> entry : amounts.entrySet()) {
+            int maxStackSize = Math.max(1, entry.getKey().getMaxStackSize());
+            for (long remaining = entry.getValue(); remaining > 0; remaining -= maxStackSize) {
+                ItemStack stack = entry.getKey().clone();
+                stack.setAmount((int) Math.min(remaining, maxStackSize));
+                stacks.add(stack);
+            }
+        }
+        return stacks;
     }
 
     // Getters
+    public Map<String, Object> getDefinition() { return definition; }
     public int getCooldown() { return cooldown; }
     public Material getBlockType() { return blockType; }
     public String getDisplayName() { return displayName; }
     public boolean hasParticles() { return particles; }
     public String getPermission() { return permission; }
     public boolean shouldDropNaturally() { return dropNaturally; }
+    public OutputMode getOutputMode() { return outputMode; }
+    public int getOutputBufferSize() { return outputBufferSize; }
+    public int getOutputFlushInterval() { return outputFlushInterval; }
+    public int getCatchUpMaxCycles() { return catchUpMaxCycles; }
+    public int getActivationRadius() { return activationRadius; }
     public List<ItemStack> getPossibleItems() { return new ArrayList<>(possibleItems); }
+    public LootTable getLootTable() { return lootTable; }
 }
\ No newline at end of file
@@ -1,33 +1,74 @@
 package com.Lino.SimpleItemGenerator;
 
+import org.bukkit.Location;
+
 import java.util.UUID;
 
-public class GeneratorData {
+public final class GeneratorData {
+    private final Location location;
+    // Chiave nella GeneratorTable, fissata alla creazione: la Location perde il mondo quando
+    // viene scaricato, e getWorld() a quel punto lancia un'eccezione
+    private final int worldId;
+    private final long position;
     private final String generatorName;
     private GeneratorConfig config;
     private final UUID placer;
-    private long lastGeneration;
-    private long itemsGenerated;
+    // Letta dal thread di salvataggio
+    private volatile long lastGeneration;
+    private long nextGeneration;
+    // Scritto solo dal thread che genera per questo generatore, letto dal salvataggio:
+    // un long e basta, senza LongAdder per ogni generatore
+    private volatile long itemsGenerated;
+
+    // Creato solo per i generatori con output in container
+    private OutputBuffer outputBuffer;
+
+    // Posizione nel GeneratorScheduler, -1 se non schedulato
+    private int heapIndex = -1;
 
-    public GeneratorData(String generatorName, GeneratorConfig config, UUID placer) {
+    /**
+     * @param worldId the id of the location's world in the plugin's WorldIds
+     */
+    public GeneratorData(Location location, int worldId, String generatorName, GeneratorConfig config, UUID placer) {
+        this.location = location;
+        this.worldId = worldId;
+        this.position = GeneratorTable.pack(location.getBlockX(), location.getBlockY(), location.getBlockZ());
         this.generatorName = generatorName;
         this.config = config;
         this.placer = placer;
-        this.lastGeneration = System.currentTimeMillis();
-        this.itemsGenerated = 0;
+        setLastGeneration(System.currentTimeMillis());
     }
 
     public boolean canGenerate(long currentTime) {
-        // Check cooldown
-        long cooldownMillis = config.getCooldown() * 1000L;
-        return currentTime - lastGeneration >= cooldownMillis;
+        return currentTime >= nextGeneration;
     }
 
     public void incrementItemsGenerated() {
         itemsGenerated++;
     }
 
+    public void addItemsGenerated(long amount) {
+        itemsGenerated += amount;
+    }
+
+    long getCooldownMillis() {
+        // Minimo 1 tick, cosi' un cooldown 0 non blocca il task globale
+        return Math.max(50L, config.getCooldown() * 1000L);
+    }
+
     // Getters and Setters
+    public Location getLocation() {
+        return location;
+    }
+
+    int getWorldId() {
+        return worldId;
+    }
+
+    long getPosition() {
+        return position;
+    }
+
     public String getGeneratorName() {
         return generatorName;
     }
@@ -38,6 +79,7 @@ public class GeneratorData {
 
     public void setConfig(GeneratorConfig config) {
         this.config = config;
+        this.nextGeneration = lastGeneration + getCooldownMillis();
     }
 
     public UUID getPlacer() {
@@ -50,6 +92,11 @@ public class GeneratorData {
 
     public void setLastGeneration(long lastGeneration) {
         this.lastGeneration = lastGeneration;
+        this.nextGeneration = lastGeneration + getCooldownMillis();
+    }
+
+    public long getNextGeneration() {
+        return nextGeneration;
     }
 
     public long getItemsGenerated() {
@@ -59,4 +106,23 @@ public class GeneratorData {
     public void setItemsGenerated(long itemsGenerated) {
         this.itemsGenerated = itemsGenerated;
     }
-}
\ No newline at end of file
+
+    public OutputBuffer getOutputBuffer() {
+        if (outputBuffer == null) {
+            outputBuffer = new OutputBuffer();
+        }
+        return outputBuffer;
+    }
+
+    public boolean hasBufferedOutput() {
+        return outputBuffer != null && !outputBuffer.isEmpty();
+    }
+
+    int getHeapIndex() {
+        return heapIndex;
+    }
+
+    void setHeapIndex(int heapIndex) {
+        this.heapIndex = heapIndex;
+    }
+}
@@ -0,0 +1,110 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Oggetti dei generatori: un modello per configurazione, costruito una volta al caricamento
+ * e solo clonato quando serve, con il nome del generatore salvato nel PersistentDataContainer.
+ *
+ * Gli oggetti vecchi, riconoscibili solo dalla riga "§8ID:" del lore, vengono ancora letti.
+ */
+public class GeneratorItems {
+    private static final String LEGACY_ID_PREFIX = "§8ID: ";
+
+    private final NamespacedKey generatorKey;
+
+    // Sostituiti interi ad ogni reload, i lettori vedono sempre una versione coerente
+    private volatile Map<String, ItemStack> templates = Collections.emptyMap();
+    private volatile Set<Material> blockTypes = Collections.emptySet();
+
+    public GeneratorItems(Plugin plugin) {
+        this.generatorKey = new NamespacedKey(plugin, "generator");
+    }
+
+    public void rebuild(Map<String, GeneratorConfig> configs) {
+        Map<String, ItemStack> newTemplates = new HashMap<>();
+        Set<Material> newBlockTypes = EnumSet.noneOf(Material.class);
+
+        for (Map.Entry<String, GeneratorConfig> entry : configs.entrySet()) {
+            newTemplates.put(entry.getKey(), createTemplate(entry.getKey(), entry.getValue()));
+            newBlockTypes.add(entry.getValue().getBlockType());
+        }
+
+        templates = newTemplates;
+        blockTypes = newBlockTypes;
+    }
+
+    /**
+     * A fresh copy of the generator item, or AIR when no generator has that name.
+     */
+    public ItemStack create(String generatorName) {
+        ItemStack template = templates.get(generatorName);
+        return template == null ? new ItemStack(Material.AIR) : template.clone();
+    }
+
+    /**
+     * The generator name stored in the item, or null if it isn't a generator.
+     */
+    public String getGeneratorType(ItemStack item) {
+        // Prima i controlli che non copiano l'ItemMeta: quasi tutti i blocchi piazzati si fermano qui
+        if (item == null || !blockTypes.contains(item.getType()) || !item.hasItemMeta()) return null;
+
+        ItemMeta meta = item.getItemMeta();
+        String generatorName = meta.getPersistentDataContainer().get(generatorKey, PersistentDataType.STRING);
+        if (generatorName != null) return generatorName;
+
+        return getLegacyGeneratorType(meta);
+    }
+
+    private String getLegacyGeneratorType(ItemMeta meta) {
+        if (!meta.hasLore()) return null;
+
+        for (String line : meta.getLore()) {
+            if (line.startsWith(LEGACY_ID_PREFIX)) {
+                return line.substring(LEGACY_ID_PREFIX.length());
+            }
+        }
+        return null;
+    }
+
+    private ItemStack createTemplate(String generatorName, GeneratorConfig config) {
+        ItemStack item = new ItemStack(config.getBlockType());
+        ItemMeta meta = item.getItemMeta();
+
+        meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', config.getDisplayName()));
+
+        List<String> lore = new ArrayList<>();
+        lore.add("§7Cooldown: §e" + config.getCooldown() + "s");
+        lore.add("§7Block Type: §e" + config.getBlockType().name());
+
+        lore.add("");
+        lore.add("§7Possible Items:");
+        config.getPossibleItems().forEach(possibleItem -> {
+            lore.add("§8• §f" + possibleItem.getType().name() + " §7x" + possibleItem.getAmount());
+        });
+
+        // La riga ID resta per le versioni precedenti del plugin, che leggono solo il lore
+        lore.add("");
+        lore.add(LEGACY_ID_PREFIX + generatorName);
+        meta.setLore(lore);
+
+        meta.getPersistentDataContainer().set(generatorKey, PersistentDataType.STRING, generatorName);
+
+        item.setItemMeta(meta);
+        return item;
+    }
+}
@@ -0,0 +1,88 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache dei limiti di generatori per giocatore, calcolati una volta dai permessi effettivi
+ * invece di chiamare hasPermission() 101 volte ad ogni piazzamento.
+ *
+ * Nessun evento Bukkit segnala in modo affidabile un cambio di permessi, quindi ogni limite
+ * scade dopo MAX_AGE_MILLIS e il piazzamento successivo lo ricalcola.
+ */
+public class GeneratorLimitCache {
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final String LIMIT_PREFIX = "itemgenerator.limit.";
+    private static final String UNLIMITED_PERMISSION = LIMIT_PREFIX + "unlimited";
+    // Un permesso cambiato vale al massimo dopo questo tempo
+    private static final long MAX_AGE_MILLIS = 30_000L;
+
+    private final Map<UUID, CachedLimit> limits = new ConcurrentHashMap<>();
+    private volatile int defaultLimit;
+
+    public GeneratorLimitCache(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+
+    public int getLimit(Player player) {
+        long now = System.currentTimeMillis();
+        CachedLimit cached = limits.get(player.getUniqueId());
+        if (cached != null && now - cached.computedAt() < MAX_AGE_MILLIS) {
+            return cached.limit();
+        }
+
+        int limit = computeLimit(player);
+        limits.put(player.getUniqueId(), new CachedLimit(limit, now));
+        return limit;
+    }
+
+    /**
+     * Recomputes the limit from the player's current effective permissions.
+     */
+    public void refresh(Player player) {
+        limits.put(player.getUniqueId(), new CachedLimit(computeLimit(player), System.currentTimeMillis()));
+    }
+
+    public void invalidate(UUID uuid) {
+        limits.remove(uuid);
+    }
+
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+        limits.clear();
+    }
+
+    public void clear() {
+        limits.clear();
+    }
+
+    private int computeLimit(Player player) {
+        if (player.hasPermission(UNLIMITED_PERMISSION)) {
+            return UNLIMITED;
+        }
+
+        int limit = -1;
+        for (PermissionAttachmentInfo info : player.getEffectivePermissions()) {
+            if (!info.getValue()) continue;
+
+            String permission = info.getPermission();
+            if (!permission.startsWith(LIMIT_PREFIX)) continue;
+
+            try {
+                limit = Math.max(limit, Integer.parseInt(permission.substring(LIMIT_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // Non e' un limite numerico (es. wildcard di altri plugin)
+            }
+        }
+
+        return limit >= 0 ? limit : defaultLimit;
+    }
+
+    private record CachedLimit(int limit, long computedAt) {
+    }
+}
@@ -10,14 +10,10 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
-import org.bukkit.event.entity.EntityExplodeEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 
 import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 
 public class GeneratorListener implements Listener {
     private final SimpleItemGenerator plugin;
@@ -30,13 +26,10 @@ public class GeneratorListener implements Listener {
     public void onBlockPlace(BlockPlaceEvent e) {
         if (e.isCancelled()) return;
 
-        ItemStack item = e.getItemInHand();
-        if (!isGenerator(item)) return;
+        String generatorName = plugin.getGeneratorItems().getGeneratorType(e.getItemInHand());
+        if (generatorName == null) return;
 
         Player player = e.getPlayer();
-        String generatorName = getGeneratorType(item);
-
-        if (generatorName == null) return;
 
         GeneratorConfig config = plugin.getGeneratorConfig(generatorName);
         if (config == null) return;
@@ -50,7 +43,7 @@ public class GeneratorListener implements Listener {
         }
 
         // Check limit
-        int currentCount = countPlayerGenerators(player);
+        int currentCount = plugin.getGeneratorCount(player.getUniqueId());
         int limit = plugin.getGeneratorLimit(player);
 
         if (currentCount >= limit) {
@@ -63,7 +56,8 @@ public class GeneratorListener implements Listener {
         Location loc = e.getBlock().getLocation();
         plugin.startGenerator(loc, generatorName, player.getUniqueId());
 
-        player.sendMessage("§aGenerator placed successfully! §7(" + (currentCount + 1) + "/" + limit + ")");
+        String limitText = limit == GeneratorLimitCache.UNLIMITED ? "∞" : String.valueOf(limit);
+        player.sendMessage("§aGenerator placed successfully! §7(" + (currentCount + 1) + "/" + limitText + ")");
     }
 
     @EventHandler(priority = EventPriority.HIGH)
@@ -71,13 +65,12 @@ public class GeneratorListener implements Listener {
         if (e.isCancelled()) return;
 
         Block block = e.getBlock();
-        Location loc = block.getLocation();
-
-        if (!plugin.getActiveGenerators().containsKey(loc)) return;
+        GeneratorData data = plugin.getActiveGenerators().get(block);
+        if (data == null) return;
 
         e.setDropItems(false);
         Player player = e.getPlayer();
-        GeneratorData data = plugin.getActiveGenerators().get(loc);
+        Location loc = block.getLocation();
 
         // Check if player can break
         boolean isOwner = data.getPlacer().equals(player.getUniqueId());
@@ -109,9 +102,7 @@ public class GeneratorListener implements Listener {
         Block block = e.getClickedBlock();
         if (block == null) return;
 
-        Location loc = block.getLocation();
-        GeneratorData data = plugin.getActiveGenerators().get(loc);
-
+        GeneratorData data = plugin.getActiveGenerators().get(block);
         if (data == null) return;
 
         Player player = e.getPlayer();
@@ -134,47 +125,6 @@ public class GeneratorListener implements Listener {
         }
     }
 
-    @EventHandler
-    public void onEntityExplode(EntityExplodeEvent e) {
-        if (!plugin.getConfig().getBoolean("protection.prevent-explosions", true)) return;
-
-        Iterator<Block> it = e.blockList().iterator();
-        while (it.hasNext()) {
-            Block block = it.next();
-            if (plugin.getActiveGenerators().containsKey(block.getLocation())) {
-                it.remove();
-            }
-        }
-    }
-
-    private boolean isGenerator(ItemStack item) {
-        if (item == null || !item.hasItemMeta()) return false;
-
-        ItemMeta meta = item.getItemMeta();
-        if (!meta.hasLore()) return false;
-
-        List<String> lore = meta.getLore();
-        return lore.stream().anyMatch(line -> line.startsWith("§8ID: "));
-    }
-
-    private String getGeneratorType(ItemStack item) {
-        if (!isGenerator(item)) return null;
-
-        List<String> lore = item.getItemMeta().getLore();
-        for (String line : lore) {
-            if (line.startsWith("§8ID: ")) {
-                return line.substring(6);
-            }
-        }
-        return null;
-    }
-
-    private int countPlayerGenerators(Player player) {
-        return (int) plugin.getActiveGenerators().values().stream()
-                .filter(data -> data.getPlacer().equals(player.getUniqueId()))
-                .count();
-    }
-
     private void showGeneratorInfo(Player player, GeneratorData data) {
         GeneratorConfig config = data.getConfig();
 
@@ -183,7 +133,26 @@ public class GeneratorListener implements Listener {
         player.sendMessage("§8§m                                     ");
         player.sendMessage("§7Items Generated: §e" + data.getItemsGenerated());
         player.sendMessage("§7Cooldown: §e" + config.getCooldown() + " seconds");
-        player.sendMessage("§7Owner: §e" + plugin.getServer().getOfflinePlayer(data.getPlacer()).getName());
+
+        // Proprietario mai visto in questa sessione: il nome arriva dopo, in una riga a parte
+        OwnerNames ownerNames = plugin.getOwnerNames();
+        String owner = ownerNames.getCached(data.getPlacer());
+        if (owner != null) {
+            player.sendMessage("§7Owner: §e" + owner);
+            player.sendMessage("§8§m                                     ");
+            return;
+        }
+
+        player.sendMessage("§7Owner: §8" + OwnerNames.placeholder(data.getPlacer()) + "...");
         player.sendMessage("§8§m                                     ");
+        ownerNames.resolve(data.getPlacer()).thenAccept(name -> {
+            if (name == null || !plugin.isEnabled()) return;
+
+            plugin.getTasks().runGlobal(() -> {
+                if (player.isOnline()) {
+                    player.sendMessage("§7Owner: §e" + name);
+                }
+            });
+        });
     }
 }
\ No newline at end of file
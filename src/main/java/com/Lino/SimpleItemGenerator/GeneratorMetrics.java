@@ -0,0 +1,179 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metriche del motore dei generatori: contatori, gauge e istogrammi di latenza indicizzati per enum,
+ * quindi registrarle costa un'operazione atomica e nessuna allocazione.
+ *
+ * Lette da /itemgenerator stats e scritte periodicamente in formato testo Prometheus
+ * (general.metrics.file), da raccogliere con il textfile collector di node_exporter.
+ */
+public class GeneratorMetrics {
+    private static final String PREFIX = "simpleitemgenerator_";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public enum Counter {
+        TASK_RUNS("global_task_runs_total", "Runs of the global generator task"),
+        GENERATORS_DUE("generators_due_total", "Generators that were due when the global task ran"),
+        ITEMS_GENERATED("items_generated_total", "Generations that produced an item"),
+        SKIPPED_CROWDED("generations_skipped_crowded_total",
+                "Generations skipped because too many items were nearby"),
+        SKIPPED_CONTAINER_FULL("generations_skipped_container_full_total",
+                "Generations skipped because the output container was full"),
+        SKIPPED_NO_PLAYERS("generations_skipped_no_players_total",
+                "Generations skipped because no player was within the activation radius"),
+        CATCH_UP_GENERATIONS("catch_up_generations_total", "Generations delivered by the offline catch-up"),
+        BUDGET_EXHAUSTED("task_runs_over_budget_total",
+                "Runs of the generator task that left due generators for the next run");
+
+        private final String name;
+        private final String help;
+
+        Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+    }
+
+    public enum Gauge {
+        ACTIVE_GENERATORS("active_generators", "Generators loaded in memory"),
+        SCHEDULED_GENERATORS("scheduled_generators", "Generators in loaded chunks waiting for their cooldown"),
+        TICK_BUDGET("tick_budget_microseconds", "Time the generator task may currently spend per run, 0 = unlimited");
+
+        private final String name;
+        private final String help;
+
+        Gauge(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+    }
+
+    public enum Timer {
+        GLOBAL_TASK("global_task_seconds", "Duration of one run of the global generator task"),
+        GENERATE_ITEM("generate_item_seconds", "Duration of one generation"),
+        SAVE_GENERATORS("save_generators_seconds", "Duration of a generator save"),
+        SAVE_PLAYERS("save_players_seconds", "Duration of a player data save");
+
+        private final String name;
+        private final String help;
+
+        Timer(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+    }
+
+    private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+    private final AtomicLongArray gauges = new AtomicLongArray(Gauge.values().length);
+    private final Map<Timer, LatencyHistogram> timers = new EnumMap<>(Timer.class);
+    private volatile long startedAt = System.currentTimeMillis();
+
+    public GeneratorMetrics() {
+        for (Timer timer : Timer.values()) {
+            timers.put(timer, new LatencyHistogram());
+        }
+    }
+
+    public void increment(Counter counter) {
+        counters.incrementAndGet(counter.ordinal());
+    }
+
+    public void add(Counter counter, long amount) {
+        counters.addAndGet(counter.ordinal(), amount);
+    }
+
+    public long get(Counter counter) {
+        return counters.get(counter.ordinal());
+    }
+
+    public void set(Gauge gauge, long value) {
+        gauges.set(gauge.ordinal(), value);
+    }
+
+    public long get(Gauge gauge) {
+        return gauges.get(gauge.ordinal());
+    }
+
+    public void record(Timer timer, long nanos) {
+        timers.get(timer).record(nanos);
+    }
+
+    public LatencyHistogram get(Timer timer) {
+        return timers.get(timer);
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * Zeroes counters and histograms, e.g. to measure a single test. Gauges are kept.
+     */
+    public void reset() {
+        for (Counter counter : Counter.values()) {
+            counters.set(counter.ordinal(), 0);
+        }
+        for (LatencyHistogram histogram : timers.values()) {
+            histogram.reset();
+        }
+        startedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * Writes every metric to the file in Prometheus text format, replacing it atomically
+     * so the collector never reads a partial file.
+     */
+    public void writePrometheus(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+
+        Path tempFile = parent.resolve(file.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+            writePrometheus(out);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void writePrometheus(Writer out) throws IOException {
+        for (Counter counter : Counter.values()) {
+            header(out, counter.name, counter.help, "counter");
+            out.write(PREFIX + counter.name + " " + get(counter) + "\n");
+        }
+
+        for (Gauge gauge : Gauge.values()) {
+            header(out, gauge.name, gauge.help, "gauge");
+            out.write(PREFIX + gauge.name + " " + get(gauge) + "\n");
+        }
+
+        for (Timer timer : Timer.values()) {
+            LatencyHistogram histogram = timers.get(timer);
+            header(out, timer.name, timer.help, "summary");
+            for (double quantile : QUANTILES) {
+                out.write(PREFIX + timer.name + "{quantile=\"" + quantile + "\"} "
+                        + seconds(histogram.getQuantile(quantile)) + "\n");
+            }
+            out.write(PREFIX + timer.name + "_sum " + seconds(histogram.getTotalNanos()) + "\n");
+            out.write(PREFIX + timer.name + "_count " + histogram.getCount() + "\n");
+        }
+    }
+
+    private static void header(Writer out, String name, String help, String type) throws IOException {
+        out.write("# HELP " + PREFIX + name + " " + help + "\n");
+        out.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
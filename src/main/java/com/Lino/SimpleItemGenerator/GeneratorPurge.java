@@ -0,0 +1,148 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.command.CommandSender;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Rimozione di molti generatori a lotti, un lotto per tick entro il TickBudget: blocco a aria
+ * (solo nei chunk caricati, per non caricarne), indici e rimozione registrata nella regione.
+ * Lo storage viene scritto una volta sola alla fine, con un salvataggio normale.
+ *
+ * Prima pero' il thread di I/O cancella dallo storage i generatori delle regioni non in memoria,
+ * e i conteggi per proprietario scendono di conseguenza. I loro blocchi restano nel mondo:
+ * i chunk non vengono caricati, e l'output del comando lo dice.
+ *
+ * Su Folia runAt mette solo in coda la rimozione sul thread della regione: la fine della purge
+ * aspetta che l'ultima rimozione in coda sia stata eseguita.
+ */
+public class GeneratorPurge {
+    // Se il budget del task dei generatori e' illimitato, la purge si limita comunque a questo
+    private static final long DEFAULT_BUDGET_NANOS = 2_000_000L;
+
+    private final SimpleItemGenerator plugin;
+    private final GeneratorQuery query;
+    private final CommandSender sender;
+    private final AtomicInteger removed = new AtomicInteger();
+    private int removedFromStorage;
+    // Generatori in memoria, cercati solo dopo la purge dello storage
+    private List<GeneratorData> targets = List.of();
+    private volatile boolean cancelled;
+    // Rimozioni in coda non ancora eseguite, +1 finche' il task sta ancora distribuendo i lotti
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+    private int next;
+    private TaskScheduler.Task task;
+
+    public GeneratorPurge(SimpleItemGenerator plugin, GeneratorQuery query, CommandSender sender) {
+        this.plugin = plugin;
+        this.query = query;
+        this.sender = sender;
+    }
+
+    public void start() {
+        plugin.getGeneratorStore().purgeStored(query.toStoredFilter(plugin)).whenComplete((deleted, error) -> {
+            // Sul thread di I/O: lo storage e' gia' cambiato, i conteggi si allineano anche se annullata
+            if (deleted != null) {
+                plugin.getOwnerIndex().removeCounts(deleted);
+                deleted.keySet().forEach(plugin.getNetworkLimits()::changed);
+            }
+            if (!cancelled) {
+                plugin.getTasks().runGlobal(() -> startLoaded(deleted, error));
+            }
+        });
+    }
+
+    // Dopo i load gia' in coda, quindi con i generatori letti prima della purge gia' in memoria
+    private void startLoaded(Map<UUID, Integer> deleted, Throwable error) {
+        if (cancelled) return;
+
+        if (error != null) {
+            plugin.getLogger().log(Level.SEVERE, "Failed to purge stored generators", error);
+            sender.sendMessage("§cCould not purge the generators of unloaded regions, see the console.");
+        } else {
+            for (int count : deleted.values()) {
+                removedFromStorage += count;
+            }
+        }
+
+        targets = query.run(plugin);
+        task = plugin.getTasks().runGlobalTimer(this::tick, 1L, 1L);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    public int getRemaining() {
+        return targets.size() - next + Math.max(0, outstanding.get() - 1);
+    }
+
+    private void tick() {
+        long budget = plugin.getTickBudget().nanos();
+        long deadline = System.nanoTime() + (budget == Long.MAX_VALUE ? DEFAULT_BUDGET_NANOS : budget);
+
+        while (next < targets.size() && System.nanoTime() - deadline < 0) {
+            GeneratorData data = targets.get(next);
+            targets.set(next++, null);
+            outstanding.incrementAndGet();
+            // Su Folia il blocco va tolto dal thread della regione
+            plugin.getTasks().runAt(data.getLocation(), () -> {
+                try {
+                    remove(data);
+                } finally {
+                    removalDone();
+                }
+            });
+        }
+
+        if (next < targets.size()) return;
+
+        cancel();
+        removalDone();
+    }
+
+    // Chi porta outstanding a zero chiude la purge, dal thread globale come il salvataggio
+    private void removalDone() {
+        if (outstanding.decrementAndGet() == 0) {
+            plugin.getTasks().runGlobal(this::finish);
+        }
+    }
+
+    private void finish() {
+        plugin.purgeFinished(this);
+        plugin.saveChanges().whenComplete((ignored, error) -> {
+            if (error != null) {
+                sender.sendMessage("§cPurge complete, but saving failed: " + error.getMessage());
+                return;
+            }
+
+            sender.sendMessage("§aPurge complete: §e" + removed.get() + " §aloaded and §e" + removedFromStorage
+                    + " §astored generators removed.");
+            if (removedFromStorage > 0) {
+                sender.sendMessage("§7The blocks of the stored generators were left in their unloaded chunks.");
+            }
+        });
+    }
+
+    private void remove(GeneratorData data) {
+        // Rotto o sostituito nel frattempo
+        if (!plugin.getActiveGenerators().isActive(data)) return;
+
+        Location loc = data.getLocation();
+        if (plugin.getChunkIndex().isLoaded(data)) {
+            loc.getBlock().setType(Material.AIR, false);
+        }
+        plugin.removeGenerator(loc);
+        removed.incrementAndGet();
+    }
+}
@@ -0,0 +1,208 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Filtro dei comandi list/count/purge: owner:, type:, world:, radius:, inactive:.
+ *
+ * I candidati vengono dall'indice piu' selettivo tra quelli richiesti (proprietario, tipo,
+ * chunk nell'area, proprietari inattivi), gli altri filtri si applicano solo a quelli.
+ * list e count coinvolgono i generatori in memoria; la purge applica gli stessi filtri anche a
+ * quelli delle regioni non caricate, direttamente nello storage (vedi toStoredFilter).
+ */
+public class GeneratorQuery {
+    // Limiti delle coordinate di chunk in WorldIds.chunkKey
+    private static final int MIN_CHUNK = -(1 << 21);
+    private static final int MAX_CHUNK = (1 << 21) - 1;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    private UUID owner;
+    private String type;
+    private World world;
+    private Location center;
+    private int radius;
+    private long inactiveMillis = -1;
+
+    /**
+     * Parses filters such as {@code owner:Steve type:diamond radius:50}.
+     *
+     * @throws IllegalArgumentException with a message for the sender if a filter is invalid
+     */
+    public static GeneratorQuery parse(SimpleItemGenerator plugin, CommandSender sender, List<String> filters) {
+        GeneratorQuery query = new GeneratorQuery();
+
+        for (String filter : filters) {
+            int colon = filter.indexOf(':');
+            if (colon <= 0 || colon == filter.length() - 1) {
+                throw new IllegalArgumentException("Invalid filter: " + filter);
+            }
+            String key = filter.substring(0, colon).toLowerCase();
+            String value = filter.substring(colon + 1);
+
+            switch (key) {
+                case "owner":
+                    query.owner = findOwner(plugin, value);
+                    break;
+                case "type":
+                    if (plugin.getGeneratorConfig(value) == null) {
+                        throw new IllegalArgumentException("Generator not found: " + value);
+                    }
+                    query.type = value;
+                    break;
+                case "world":
+                    query.world = Bukkit.getWorld(value);
+                    if (query.world == null) {
+                        throw new IllegalArgumentException("World not found: " + value);
+                    }
+                    break;
+                case "radius":
+                    if (!(sender instanceof Player)) {
+                        throw new IllegalArgumentException("Only players can use radius:");
+                    }
+                    query.radius = parsePositive(value, filter);
+                    query.center = ((Player) sender).getLocation();
+                    break;
+                case "inactive":
+                    query.inactiveMillis = parsePositive(value, filter) * DAY_MILLIS;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown filter: " + key);
+            }
+        }
+
+        if (query.center != null) {
+            if (query.world != null && query.world != query.center.getWorld()) {
+                throw new IllegalArgumentException("radius: is around you, in your world");
+            }
+            query.world = query.center.getWorld();
+        }
+        return query;
+    }
+
+    public boolean isEmpty() {
+        return owner == null && type == null && world == null && inactiveMillis < 0;
+    }
+
+    public UUID getOwner() {
+        return owner;
+    }
+
+    /**
+     * @return the loaded generators matching every filter
+     */
+    public List<GeneratorData> run(SimpleItemGenerator plugin) {
+        long now = System.currentTimeMillis();
+        Set<UUID> inactiveOwners = inactiveMillis >= 0 ? findInactiveOwners(plugin, now) : null;
+
+        List<GeneratorData> matches = new ArrayList<>();
+        for (GeneratorData data : candidates(plugin, inactiveOwners)) {
+            if (matches(data, inactiveOwners)) {
+                matches.add(data);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The same filters for the generators in storage, see {@link GeneratorStore#purge}.
+     * inactive: becomes the set of inactive owners at this moment.
+     */
+    public StoredGeneratorFilter toStoredFilter(SimpleItemGenerator plugin) {
+        Set<UUID> owners = null;
+        if (inactiveMillis >= 0) {
+            owners = findInactiveOwners(plugin, System.currentTimeMillis());
+            if (owner != null) {
+                owners.retainAll(Set.of(owner));
+            }
+        } else if (owner != null) {
+            owners = Set.of(owner);
+        }
+
+        if (center == null) {
+            return new StoredGeneratorFilter(owners, type, world == null ? null : world.getName(), 0, 0, 0);
+        }
+        return new StoredGeneratorFilter(owners, type, world.getName(), center.getBlockX(), center.getBlockZ(), radius);
+    }
+
+    private Iterable<GeneratorData> candidates(SimpleItemGenerator plugin, Set<UUID> inactiveOwners) {
+        if (owner != null) return new ArrayList<>(plugin.getOwnerIndex().getGenerators(owner));
+        if (type != null) return new ArrayList<>(plugin.getTypeIndex().getGenerators(type));
+
+        if (center != null) {
+            return plugin.getChunkIndex().getGenerators(world,
+                    (center.getBlockX() - radius) >> 4, (center.getBlockX() + radius) >> 4,
+                    (center.getBlockZ() - radius) >> 4, (center.getBlockZ() + radius) >> 4);
+        }
+
+        if (inactiveOwners != null) {
+            List<GeneratorData> generators = new ArrayList<>();
+            for (UUID uuid : inactiveOwners) {
+                generators.addAll(plugin.getOwnerIndex().getGenerators(uuid));
+            }
+            return generators;
+        }
+
+        if (world != null) {
+            return plugin.getChunkIndex().getGenerators(world, MIN_CHUNK, MAX_CHUNK, MIN_CHUNK, MAX_CHUNK);
+        }
+        return plugin.getActiveGenerators().values();
+    }
+
+    private boolean matches(GeneratorData data, Set<UUID> inactiveOwners) {
+        if (owner != null && !owner.equals(data.getPlacer())) return false;
+        if (type != null && !type.equals(data.getGeneratorName())) return false;
+        if (inactiveOwners != null && !inactiveOwners.contains(data.getPlacer())) return false;
+
+        Location loc = data.getLocation();
+        if (world != null && loc.getWorld() != world) return false;
+        if (center != null) {
+            int dx = loc.getBlockX() - center.getBlockX();
+            int dz = loc.getBlockZ() - center.getBlockZ();
+            if ((long) dx * dx + (long) dz * dz > (long) radius * radius) return false;
+        }
+        return true;
+    }
+
+    // PlayerData.lastActive: ultimo join, quit o piazzamento, salvato con i dati del giocatore.
+    // Solo i giocatori oltre il limite passano dal controllo online
+    private Set<UUID> findInactiveOwners(SimpleItemGenerator plugin, long now) {
+        Set<UUID> inactive = plugin.getActivityIndex().activeBefore(now - inactiveMillis);
+        inactive.removeIf(uuid -> Bukkit.getPlayer(uuid) != null);
+        return inactive;
+    }
+
+    // Senza lookup bloccanti: UUID, giocatore online o nome gia' nella cache dei nomi
+    private static UUID findOwner(SimpleItemGenerator plugin, String value) {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException ignored) {
+        }
+
+        Player online = Bukkit.getPlayerExact(value);
+        if (online != null) return online.getUniqueId();
+
+        UUID cached = plugin.getOwnerNames().findUuid(value);
+        if (cached == null) {
+            throw new IllegalArgumentException("Unknown player " + value + ", use their UUID");
+        }
+        return cached;
+    }
+
+    private static int parsePositive(String value, String filter) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number > 0) return number;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException("Invalid number in " + filter);
+    }
+}
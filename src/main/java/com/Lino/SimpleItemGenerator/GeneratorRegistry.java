@@ -0,0 +1,77 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Le configurazioni dei generatori lette da config.yml. Immutabile: un reload ne costruisce
+ * una nuova fuori dal main thread e la pubblica sostituendo un solo riferimento, quindi
+ * chi la legge vede sempre una versione completa.
+ */
+public final class GeneratorRegistry {
+    public static final GeneratorRegistry EMPTY = new GeneratorRegistry(Collections.emptyMap());
+
+    private final Map<String, GeneratorConfig> configs;
+
+    private GeneratorRegistry(Map<String, GeneratorConfig> configs) {
+        this.configs = Collections.unmodifiableMap(configs);
+    }
+
+    /**
+     * Parses every generator of the section. A broken generator is logged and skipped.
+     */
+    public static GeneratorRegistry load(ConfigurationSection section, Logger logger) {
+        Map<String, GeneratorConfig> configs = new LinkedHashMap<>();
+
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                try {
+                    configs.put(key, new GeneratorConfig(section.getConfigurationSection(key)));
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Failed to load generator config: " + key, e);
+                }
+            }
+        }
+
+        return new GeneratorRegistry(configs);
+    }
+
+    public GeneratorConfig get(String name) {
+        return configs.get(name);
+    }
+
+    public Map<String, GeneratorConfig> getConfigs() {
+        return configs;
+    }
+
+    public int size() {
+        return configs.size();
+    }
+
+    /**
+     * @return the types that were added, removed or defined differently since the previous registry
+     */
+    public Set<String> changedTypes(GeneratorRegistry previous) {
+        Set<String> changed = new HashSet<>();
+
+        for (Map.Entry<String, GeneratorConfig> entry : configs.entrySet()) {
+            GeneratorConfig old = previous.get(entry.getKey());
+            if (old == null || !old.getDefinition().equals(entry.getValue().getDefinition())) {
+                changed.add(entry.getKey());
+            }
+        }
+        for (String type : previous.configs.keySet()) {
+            if (!configs.containsKey(type)) {
+                changed.add(type);
+            }
+        }
+        return changed;
+    }
+}
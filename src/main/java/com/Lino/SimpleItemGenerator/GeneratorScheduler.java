@@ -0,0 +1,143 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Min-heap dei generatori ordinato per scadenza (next generation time).
+ * Ogni GeneratorData conosce la propria posizione nello heap, quindi
+ * inserimento, rimozione e ri-schedulazione costano O(log n) senza allocazioni,
+ * e un giro del task globale tocca solo i generatori effettivamente scaduti.
+ *
+ * Non thread-safe: ogni partizione del GenerationEngine ne ha uno, usato sotto il suo lock.
+ */
+public class GeneratorScheduler {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private GeneratorData[] heap = new GeneratorData[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Inserts the generator, or moves it to its new position if it is
+     * already queued (e.g. after its cooldown changed).
+     */
+    public void schedule(GeneratorData data) {
+        int index = data.getHeapIndex();
+        if (index >= 0) {
+            siftUp(index);
+            siftDown(data.getHeapIndex());
+            return;
+        }
+
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = data;
+        data.setHeapIndex(size);
+        siftUp(size++);
+    }
+
+    public void unschedule(GeneratorData data) {
+        int index = data.getHeapIndex();
+        if (index < 0) return;
+
+        GeneratorData last = heap[--size];
+        heap[size] = null;
+        data.setHeapIndex(-1);
+
+        if (index < size) {
+            heap[index] = last;
+            last.setHeapIndex(index);
+            siftUp(index);
+            siftDown(last.getHeapIndex());
+        }
+    }
+
+    /**
+     * Pops every generator whose deadline is <= currentTime and hands it to
+     * the consumer. The consumer is responsible for scheduling it again.
+     *
+     * @return number of generators processed
+     */
+    public int pollDue(long currentTime, Consumer<GeneratorData> consumer) {
+        return pollDue(currentTime, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Like {@link #pollDue(long, Consumer)}, but stops once System.nanoTime() passes the
+     * deadline. The generators left are the most overdue, so the next call starts from them.
+     */
+    public int pollDue(long currentTime, long deadlineNanos, Consumer<GeneratorData> consumer) {
+        int processed = 0;
+        while (size > 0 && heap[0].getNextGeneration() <= currentTime) {
+            GeneratorData data = heap[0];
+            unschedule(data);
+            consumer.accept(data);
+            processed++;
+
+            if (deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos > 0) break;
+        }
+        return processed;
+    }
+
+    /**
+     * Whether the earliest generator is due at currentTime.
+     */
+    public boolean hasDue(long currentTime) {
+        return size > 0 && heap[0].getNextGeneration() <= currentTime;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].setHeapIndex(-1);
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int index) {
+        GeneratorData data = heap[index];
+        long due = data.getNextGeneration();
+
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            GeneratorData parentData = heap[parent];
+            if (parentData.getNextGeneration() <= due) break;
+
+            heap[index] = parentData;
+            parentData.setHeapIndex(index);
+            index = parent;
+        }
+
+        heap[index] = data;
+        data.setHeapIndex(index);
+    }
+
+    private void siftDown(int index) {
+        GeneratorData data = heap[index];
+        long due = data.getNextGeneration();
+        int half = size >>> 1;
+
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && heap[right].getNextGeneration() < heap[child].getNextGeneration()) {
+                child = right;
+            }
+
+            GeneratorData childData = heap[child];
+            if (due <= childData.getNextGeneration()) break;
+
+            heap[index] = childData;
+            childData.setHeapIndex(index);
+            index = child;
+        }
+
+        heap[index] = data;
+        data.setHeapIndex(index);
+    }
+}
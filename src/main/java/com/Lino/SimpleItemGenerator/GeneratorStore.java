@@ -0,0 +1,73 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Backend di persistenza per generatori e dati dei giocatori.
+ *
+ * Il RegionManager decide cosa caricare e quando salvare; il backend legge e scrive
+ * una regione (32x32 chunk) alla volta. Tutte le chiamate arrivano da un solo thread
+ * per volta, mai dal main thread durante il gioco.
+ */
+public interface GeneratorStore {
+
+    /**
+     * Prepares the store (schema, migrations) before anything else is called.
+     *
+     * @return the number of generators stored for each owner
+     */
+    Map<UUID, Integer> open() throws IOException;
+
+    List<StoredGenerator> loadRegion(String world, int regionX, int regionZ) throws IOException;
+
+    /**
+     * Persists the changes made to one region since its last save, in the order they happened.
+     *
+     * @param fullState every generator of the region, for stores that rewrite it as a whole.
+     *                  Captured with the changes, not read from live state: it may return null,
+     *                  in which case the store keeps the changes and asks again on a later save
+     */
+    void saveRegion(String world, int regionX, int regionZ, List<GeneratorChange> changes,
+                    Supplier<List<StoredGenerator>> fullState) throws IOException;
+
+    /**
+     * Called when a region leaves memory, after its last save.
+     */
+    default void unloadRegion(String world, int regionX, int regionZ) {
+    }
+
+    /**
+     * Persists the per-owner counts, for stores that cannot compute them cheaply.
+     */
+    default void saveOwnerCounts(Map<UUID, Integer> counts) throws IOException {
+    }
+
+    /**
+     * Deletes the stored generators matching the filter, outside the regions it excludes.
+     * Their blocks are left alone: the chunks are not loaded.
+     *
+     * @return the number of generators deleted for each owner
+     */
+    Map<UUID, Integer> purge(StoredGeneratorFilter filter) throws IOException;
+
+    /**
+     * Called once at the end of every save round.
+     */
+    default void commit() throws IOException {
+    }
+
+    Map<UUID, PlayerData> loadPlayers() throws IOException;
+
+    /**
+     * Saves the given players, the ones that changed since the previous call. Players not
+     * in the collection keep their stored values.
+     */
+    void savePlayers(Collection<PlayerData> players) throws IOException;
+
+    void close() throws IOException;
+}
@@ -0,0 +1,223 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generatori caricati per posizione: tabella a indirizzamento aperto (linear probing) con chiavi
+ * primitive, id del mondo e x/y/z impacchettati in un long come BlockPos.asLong().
+ * Sostituisce la ConcurrentHashMap con chiave Location: niente hash di double, niente nodi
+ * per voce, e le lookup dai listener non allocano.
+ *
+ * Sincronizzata come ChunkIndex: su Folia la usano i thread di regione e il thread globale.
+ */
+public class GeneratorTable {
+    private static final int INITIAL_CAPACITY = 256;
+    // Slot vuoto: nessun mondo ha id negativo
+    private static final int FREE = -1;
+
+    private final WorldIds worldIds;
+    private final int initialCapacity;
+
+    private int[] worlds;
+    private long[] positions;
+    private GeneratorData[] values;
+    private int size;
+    private int resizeAt;
+
+    public GeneratorTable(WorldIds worldIds) {
+        this(worldIds, INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity a power of two, e.g. small for the tables of single regions
+     */
+    public GeneratorTable(WorldIds worldIds, int initialCapacity) {
+        if (initialCapacity < 2 || Integer.bitCount(initialCapacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + initialCapacity);
+        }
+        this.worldIds = worldIds;
+        this.initialCapacity = initialCapacity;
+        allocate(initialCapacity);
+    }
+
+    /**
+     * Packs block coordinates like Minecraft's BlockPos: x and z in 26 bits, y in 12.
+     */
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public synchronized GeneratorData get(World world, int x, int y, int z) {
+        int worldId = worldIds.find(world);
+        if (worldId < 0) return null;
+
+        int slot = find(worldId, pack(x, y, z));
+        return slot < 0 ? null : values[slot];
+    }
+
+    public GeneratorData get(Block block) {
+        return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+    }
+
+    public GeneratorData get(Location loc) {
+        return get(loc.getWorld(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
+    }
+
+    /**
+     * Whether this very instance is the generator at its location, i.e. it has not been
+     * removed or replaced.
+     */
+    public synchronized boolean isActive(GeneratorData data) {
+        int slot = find(data.getWorldId(), data.getPosition());
+        return slot >= 0 && values[slot] == data;
+    }
+
+    /**
+     * @return the generator previously at the same location, or null
+     */
+    public synchronized GeneratorData put(GeneratorData data) {
+        int worldId = data.getWorldId();
+        long position = data.getPosition();
+
+        int mask = values.length - 1;
+        int slot = hash(worldId, position) & mask;
+        while (worlds[slot] != FREE) {
+            if (worlds[slot] == worldId && positions[slot] == position) {
+                GeneratorData previous = values[slot];
+                values[slot] = data;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        worlds[slot] = worldId;
+        positions[slot] = position;
+        values[slot] = data;
+        if (++size > resizeAt) {
+            resize();
+        }
+        return null;
+    }
+
+    /**
+     * @return the generator that was at the location, or null
+     */
+    public synchronized GeneratorData remove(Location loc) {
+        int worldId = worldIds.find(loc.getWorld());
+        if (worldId < 0) return null;
+
+        int slot = find(worldId, pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ()));
+        if (slot < 0) return null;
+
+        GeneratorData removed = values[slot];
+        delete(slot);
+        return removed;
+    }
+
+    /**
+     * Removes the generator only if it is still the one at its location.
+     */
+    public synchronized boolean remove(GeneratorData data) {
+        int slot = find(data.getWorldId(), data.getPosition());
+        if (slot < 0 || values[slot] != data) return false;
+
+        delete(slot);
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return a copy of the generators, safe to iterate while the table changes
+     */
+    public synchronized List<GeneratorData> values() {
+        List<GeneratorData> copy = new ArrayList<>(size);
+        for (GeneratorData data : values) {
+            if (data != null) copy.add(data);
+        }
+        return copy;
+    }
+
+    public synchronized void clear() {
+        allocate(initialCapacity);
+    }
+
+    private int find(int worldId, long position) {
+        int mask = values.length - 1;
+        int slot = hash(worldId, position) & mask;
+        while (worlds[slot] != FREE) {
+            if (worlds[slot] == worldId && positions[slot] == position) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    // Backward shift: le voci successive dello stesso gruppo tornano verso la loro posizione ideale,
+    // cosi' non servono tombstone e le ricerche restano corte anche dopo molte rimozioni
+    private void delete(int slot) {
+        int mask = values.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+
+        while (worlds[next] != FREE) {
+            int ideal = hash(worlds[next], positions[next]) & mask;
+            // La voce puo' riempire il buco solo se il buco sta tra la sua posizione ideale e lei
+            if (((next - ideal) & mask) >= ((next - hole) & mask)) {
+                worlds[hole] = worlds[next];
+                positions[hole] = positions[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        worlds[hole] = FREE;
+        positions[hole] = 0;
+        values[hole] = null;
+        size--;
+    }
+
+    private void resize() {
+        int[] oldWorlds = worlds;
+        long[] oldPositions = positions;
+        GeneratorData[] oldValues = values;
+
+        allocate(oldValues.length * 2);
+        int mask = values.length - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldWorlds[i] == FREE) continue;
+
+            int slot = hash(oldWorlds[i], oldPositions[i]) & mask;
+            while (worlds[slot] != FREE) {
+                slot = (slot + 1) & mask;
+            }
+            worlds[slot] = oldWorlds[i];
+            positions[slot] = oldPositions[i];
+            values[slot] = oldValues[i];
+            size++;
+        }
+    }
+
+    private void allocate(int capacity) {
+        worlds = new int[capacity];
+        Arrays.fill(worlds, FREE);
+        positions = new long[capacity];
+        values = new GeneratorData[capacity];
+        size = 0;
+        resizeAt = capacity / 4 * 3;
+    }
+
+    private static int hash(int worldId, long position) {
+        // Mescola i bit: le coordinate vicine differiscono solo nei bit bassi di ogni campo
+        long h = (position ^ ((long) worldId << 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,23 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Restituisce sempre la stessa istanza per valori uguali: i generatori dello stesso proprietario
+ * o tipo letti dallo storage condividono un solo UUID o String invece di averne uno a testa.
+ */
+public class Interner<T> {
+    private final Map<T, T> instances = new ConcurrentHashMap<>();
+
+    public T intern(T value) {
+        if (value == null) return null;
+
+        T existing = instances.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    public int size() {
+        return instances.size();
+    }
+}
@@ -0,0 +1,181 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Item;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conteggio delle entita' item per chunk, mantenuto dagli eventi di spawn/merge/pickup/despawn.
+ * Sostituisce getNearbyEntities() ad ogni drop: il controllo di affollamento somma al massimo
+ * qualche contatore. Gli item distrutti senza evento (lava, void...) fanno solo sovrastimare,
+ * e un chunk che sembra affollato viene ricontato davvero al massimo ogni chunk-cache-update secondi.
+ *
+ * Ogni item e' contato in un solo chunk, quello in cui e' stato visto l'ultima volta (spawn,
+ * caricamento o riconteggio), e viene tolto da quel chunk anche se nel frattempo si e' spostato:
+ * un item che scivola nel chunk accanto non fa mai scendere il conteggio del chunk sbagliato.
+ *
+ * Su Folia ogni chunk viene aggiornato solo dal thread che lo possiede; i chunk vicini
+ * di un'altra regione si leggono (al massimo un po' vecchi) ma non si ricontano.
+ */
+public class ItemDensityTracker {
+    private final WorldIds worldIds;
+    private final TaskScheduler tasks;
+    private final Map<Long, ChunkCounter> counters = new ConcurrentHashMap<>();
+    // Entity id -> chunk in cui l'item e' contato
+    private final Map<Integer, Long> countedIn = new ConcurrentHashMap<>();
+    // general.performance.chunk-cache-update
+    private volatile long recountInterval = 5000L;
+
+    public ItemDensityTracker(WorldIds worldIds, TaskScheduler tasks) {
+        this.worldIds = worldIds;
+        this.tasks = tasks;
+    }
+
+    public void itemAdded(Item item) {
+        track(item.getEntityId(), key(item.getLocation()));
+    }
+
+    public void itemRemoved(Item item) {
+        Long key = countedIn.remove(item.getEntityId());
+        if (key == null) return;
+
+        ChunkCounter counter = counters.get(key);
+        if (counter != null) {
+            counter.items.remove(item.getEntityId());
+        }
+    }
+
+    /**
+     * Resets the chunk's count from the entities it has just loaded.
+     */
+    public void entitiesLoaded(Chunk chunk, Iterable<Entity> entities) {
+        recount(worldIds.chunkKey(chunk.getWorld(), chunk.getX(), chunk.getZ()), entities);
+    }
+
+    /**
+     * Counts the items already in the world's loaded chunks, for when the plugin
+     * is enabled after those chunks were loaded. Main thread only: on Folia the loaded
+     * chunks cannot be listed and the counts come from EntitiesLoadEvent alone.
+     */
+    public void countLoadedChunks(World world) {
+        for (Chunk chunk : world.getLoadedChunks()) {
+            recount(worldIds.chunkKey(world, chunk.getX(), chunk.getZ()), Arrays.asList(chunk.getEntities()));
+        }
+    }
+
+    public void entitiesUnloaded(Chunk chunk) {
+        long key = worldIds.chunkKey(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        ChunkCounter counter = counters.remove(key);
+        if (counter == null) return;
+
+        for (Integer id : counter.items) {
+            countedIn.remove(id, key);
+        }
+    }
+
+    /**
+     * Whether at least maxItems item entities are in the chunks covering the
+     * square of the given radius around the location.
+     */
+    public boolean isCrowded(Location location, int radius, int maxItems) {
+        World world = location.getWorld();
+        int worldId = worldIds.id(world);
+        int minX = (location.getBlockX() - radius) >> 4;
+        int maxX = (location.getBlockX() + radius) >> 4;
+        int minZ = (location.getBlockZ() - radius) >> 4;
+        int maxZ = (location.getBlockZ() + radius) >> 4;
+
+        if (sum(worldId, minX, maxX, minZ, maxZ) < maxItems) return false;
+
+        // Possibile sovrastima: riconta i chunk con un conteggio vecchio e riprova
+        long currentTime = System.currentTimeMillis();
+        boolean recounted = false;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                long key = WorldIds.chunkKey(worldId, x, z);
+                ChunkCounter counter = counters.get(key);
+                if (counter == null || currentTime - counter.lastRecount < recountInterval) continue;
+                if (!world.isChunkLoaded(x, z) || !tasks.isOwnedByCurrentThread(world, x, z)) continue;
+
+                recount(key, Arrays.asList(world.getChunkAt(x, z).getEntities())).lastRecount = currentTime;
+                recounted = true;
+            }
+        }
+
+        return !recounted || sum(worldId, minX, maxX, minZ, maxZ) >= maxItems;
+    }
+
+    public void setRecountInterval(long millis) {
+        this.recountInterval = Math.max(0, millis);
+    }
+
+    public void clear() {
+        counters.clear();
+        countedIn.clear();
+    }
+
+    private int sum(int worldId, int minX, int maxX, int minZ, int maxZ) {
+        int total = 0;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                ChunkCounter counter = counters.get(WorldIds.chunkKey(worldId, x, z));
+                if (counter != null) {
+                    total += counter.items.size();
+                }
+            }
+        }
+        return total;
+    }
+
+    private void track(int id, long key) {
+        Long previous = countedIn.put(id, key);
+        if (previous != null && previous != key) {
+            ChunkCounter counter = counters.get(previous);
+            if (counter != null) {
+                counter.items.remove(id);
+            }
+        }
+        counters.computeIfAbsent(key, k -> new ChunkCounter()).items.add(id);
+    }
+
+    /**
+     * Makes the chunk's count exactly the items in it: the ones counted elsewhere move here,
+     * the ones no longer here stop being counted.
+     */
+    private ChunkCounter recount(long key, Iterable<? extends Entity> entities) {
+        ChunkCounter counter = counters.computeIfAbsent(key, k -> new ChunkCounter());
+        Set<Integer> found = new HashSet<>();
+        for (Entity entity : entities) {
+            if (entity instanceof Item) {
+                found.add(entity.getEntityId());
+                track(entity.getEntityId(), key);
+            }
+        }
+
+        for (Integer id : counter.items) {
+            if (!found.contains(id)) {
+                counter.items.remove(id);
+                countedIn.remove(id, key);
+            }
+        }
+        return counter;
+    }
+
+    private long key(Location location) {
+        return worldIds.chunkKey(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+    }
+
+    private static class ChunkCounter {
+        // Entity id degli item contati qui
+        private final Set<Integer> items = ConcurrentHashMap.newKeySet();
+        private volatile long lastRecount;
+    }
+}
@@ -1,11 +1,23 @@
 package com.Lino.SimpleItemGenerator;
 
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+
 public class ItemGeneratorCommand implements CommandExecutor {
+    private static final int TOP_SIZE = 10;
+    private static final int LIST_PAGE_SIZE = 10;
+    private static final String FILTERS = "[owner:<player>] [type:<generator>] [world:<world>] [radius:<blocks>] [inactive:<days>]";
+
     private final SimpleItemGenerator plugin;
 
     public ItemGeneratorCommand(SimpleItemGenerator plugin) {
@@ -17,6 +29,9 @@ public class ItemGeneratorCommand implements CommandExecutor {
         if (args.length == 0) {
             sender.sendMessage("§b/itemgenerator give <player> <name> §7- Give a generator!");
             sender.sendMessage("§b/itemgenerator reload §7- Reload config");
+            sender.sendMessage("§b/itemgenerator stats [reset] §7- Show performance statistics");
+            sender.sendMessage("§b/itemgenerator top [items|placed|<generator>] §7- Show the leaderboards");
+            sender.sendMessage("§b/itemgenerator list|count|purge <filters> §7- Find loaded generators, or purge them from storage too");
             return false;
         }
 
@@ -54,13 +69,248 @@ public class ItemGeneratorCommand implements CommandExecutor {
                     return false;
                 }
 
-                plugin.reloadPlugin();
-                sender.sendMessage("§aConfiguration successfully reloaded!");
+                sender.sendMessage("§7Reloading configuration...");
+                plugin.reloadPlugin().whenComplete((changed, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        sender.sendMessage("§cReload failed: " + cause.getMessage());
+                    } else {
+                        sender.sendMessage("§aConfiguration successfully reloaded! §7(" + changed
+                                + " generator types changed)");
+                    }
+                });
+                return true;
+
+            case "stats":
+                if (!sender.hasPermission("itemgenerator.stats")) {
+                    sender.sendMessage("§cNo access!");
+                    return false;
+                }
+
+                if (args.length > 1 && args[1].equalsIgnoreCase("reset")) {
+                    plugin.getMetrics().reset();
+                    sender.sendMessage("§aStatistics reset!");
+                    return true;
+                }
+
+                showStats(sender);
                 return true;
 
+            case "top":
+                if (!sender.hasPermission("itemgenerator.top")) {
+                    sender.sendMessage("§cNo access!");
+                    return false;
+                }
+
+                showTop(sender, args.length > 1 ? args[1] : "items");
+                return true;
+
+            case "list":
+            case "count":
+                if (!sender.hasPermission("itemgenerator.list")) {
+                    sender.sendMessage("§cNo access!");
+                    return false;
+                }
+
+                return args[0].equalsIgnoreCase("list") ? listGenerators(sender, args) : countGenerators(sender, args);
+
+            case "purge":
+                if (!sender.hasPermission("itemgenerator.purge")) {
+                    sender.sendMessage("§cNo access!");
+                    return false;
+                }
+
+                return purgeGenerators(sender, args);
+
             default:
                 sender.sendMessage("§cUnknown command!");
                 return false;
         }
     }
-}
\ No newline at end of file
+
+    private boolean listGenerators(CommandSender sender, String[] args) {
+        List<String> filters = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        int page = 1;
+        if (!filters.isEmpty() && filters.get(filters.size() - 1).matches("\\d{1,6}")) {
+            page = Math.max(1, Integer.parseInt(filters.remove(filters.size() - 1)));
+        }
+
+        GeneratorQuery query = parseQuery(sender, filters);
+        if (query == null) {
+            sender.sendMessage("§cUsage: /itemgenerator list " + FILTERS + " [page]");
+            return false;
+        }
+
+        List<GeneratorData> matches = query.run(plugin);
+        int pages = Math.max(1, (matches.size() + LIST_PAGE_SIZE - 1) / LIST_PAGE_SIZE);
+        page = Math.min(page, pages);
+
+        sender.sendMessage("§8§m                                     ");
+        sender.sendMessage("§b§lGenerators §7(" + matches.size() + " loaded, page " + page + "/" + pages + ")");
+        sender.sendMessage("§8§m                                     ");
+        int end = Math.min(matches.size(), page * LIST_PAGE_SIZE);
+        for (int i = (page - 1) * LIST_PAGE_SIZE; i < end; i++) {
+            GeneratorData data = matches.get(i);
+            Location loc = data.getLocation();
+            sender.sendMessage("§e" + data.getGeneratorName() + " §8(" + loc.getWorld().getName() + " "
+                    + loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ() + ") §f"
+                    + getPlayerName(data.getPlacer()) + " §7- §e" + data.getItemsGenerated() + " §7items");
+        }
+        sender.sendMessage("§8§m                                     ");
+        return true;
+    }
+
+    private boolean countGenerators(CommandSender sender, String[] args) {
+        GeneratorQuery query = parseQuery(sender, Arrays.asList(args).subList(1, args.length));
+        if (query == null) {
+            sender.sendMessage("§cUsage: /itemgenerator count " + FILTERS);
+            return false;
+        }
+
+        // Solo quelli in memoria: contare lo storage vorrebbe dire leggere le regioni non caricate
+        sender.sendMessage("§7Loaded generators matching: §e" + query.run(plugin).size());
+        if (query.getOwner() != null) {
+            // I conteggi per proprietario includono le regioni non caricate
+            sender.sendMessage("§7Total owned by §f" + getPlayerName(query.getOwner()) + "§7: §e"
+                    + plugin.getOwnerIndex().count(query.getOwner()));
+        }
+        return true;
+    }
+
+    private boolean purgeGenerators(CommandSender sender, String[] args) {
+        List<String> filters = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        boolean confirmed = !filters.isEmpty() && filters.get(filters.size() - 1).equalsIgnoreCase("confirm");
+        if (confirmed) {
+            filters.remove(filters.size() - 1);
+        }
+
+        GeneratorQuery query = parseQuery(sender, filters);
+        if (query == null || query.isEmpty()) {
+            sender.sendMessage("§cUsage: /itemgenerator purge " + FILTERS + " [confirm]");
+            sender.sendMessage("§7At least one filter is required.");
+            return false;
+        }
+
+        if (!confirmed) {
+            sender.sendMessage("§eThis will remove §c" + query.run(plugin).size() + " §eloaded generators and their blocks,");
+            sender.sendMessage("§eplus the matching generators of unloaded regions, whose blocks stay in the world.");
+            sender.sendMessage("§7Repeat the command with §fconfirm §7at the end to proceed.");
+            return true;
+        }
+
+        if (!plugin.startPurge(query, sender)) {
+            sender.sendMessage("§cAnother purge is still running!");
+            return false;
+        }
+        sender.sendMessage("§7Purging generators...");
+        return true;
+    }
+
+    private GeneratorQuery parseQuery(CommandSender sender, List<String> filters) {
+        try {
+            return GeneratorQuery.parse(plugin, sender, filters);
+        } catch (IllegalArgumentException e) {
+            sender.sendMessage("§c" + e.getMessage());
+            return null;
+        }
+    }
+
+    private void showStats(CommandSender sender) {
+        GeneratorMetrics metrics = plugin.getMetrics();
+        long minutes = Math.max(1, (System.currentTimeMillis() - metrics.getStartedAt()) / 60000);
+
+        sender.sendMessage("§8§m                                     ");
+        sender.sendMessage("§b§lGenerator Statistics §7(last " + minutes + " min)");
+        sender.sendMessage("§8§m                                     ");
+        sender.sendMessage("§7Generators: §e" + metrics.get(GeneratorMetrics.Gauge.ACTIVE_GENERATORS) + " §7loaded, §e"
+                + metrics.get(GeneratorMetrics.Gauge.SCHEDULED_GENERATORS) + " §7ticking");
+        sender.sendMessage("§7Global task: " + formatTimer(metrics.get(GeneratorMetrics.Timer.GLOBAL_TASK)));
+        TickBudget budget = plugin.getTickBudget();
+        long budgetMicros = metrics.get(GeneratorMetrics.Gauge.TICK_BUDGET);
+        sender.sendMessage("§7Budget: §e" + (budgetMicros == 0 ? "unlimited" : budgetMicros + "µs")
+                + " §7at §e" + String.format("%.1f", budget.getMspt()) + " §7" + (budget.isMeasured() ? "MSPT" : "ms/tick")
+                + ", over budget §e" + metrics.get(GeneratorMetrics.Counter.BUDGET_EXHAUSTED) + " §7times");
+        sender.sendMessage("§7Generation: " + formatTimer(metrics.get(GeneratorMetrics.Timer.GENERATE_ITEM)));
+        sender.sendMessage("§7Due: §e" + metrics.get(GeneratorMetrics.Counter.GENERATORS_DUE)
+                + " §7Generated: §e" + metrics.get(GeneratorMetrics.Counter.ITEMS_GENERATED)
+                + " §7Catch-up: §e" + metrics.get(GeneratorMetrics.Counter.CATCH_UP_GENERATIONS));
+        sender.sendMessage("§7Skipped: §e" + metrics.get(GeneratorMetrics.Counter.SKIPPED_CROWDED)
+                + " §7crowded, §e" + metrics.get(GeneratorMetrics.Counter.SKIPPED_CONTAINER_FULL) + " §7container full, §e"
+                + metrics.get(GeneratorMetrics.Counter.SKIPPED_NO_PLAYERS) + " §7no players");
+        sender.sendMessage("§7Generator saves: " + formatTimer(metrics.get(GeneratorMetrics.Timer.SAVE_GENERATORS)));
+        sender.sendMessage("§7Player saves: " + formatTimer(metrics.get(GeneratorMetrics.Timer.SAVE_PLAYERS)));
+        sender.sendMessage("§8§m                                     ");
+    }
+
+    private void showTop(CommandSender sender, String board) {
+        Leaderboards leaderboards = plugin.getLeaderboards();
+
+        switch (board.toLowerCase()) {
+            case "items":
+                showPlayerTop(sender, "Most Items Generated", leaderboards.getItemsGenerated(), "items");
+                return;
+            case "placed":
+                showPlayerTop(sender, "Most Generators Placed", leaderboards.getGeneratorsPlaced(), "placed");
+                return;
+        }
+
+        GeneratorConfig config = plugin.getGeneratorConfig(board);
+        if (config == null) {
+            sender.sendMessage("§cUsage: /itemgenerator top [items|placed|<generator>]");
+            return;
+        }
+
+        Leaderboard<GeneratorData> generators = leaderboards.getGenerators(board);
+        sender.sendMessage("§8§m                                     ");
+        sender.sendMessage("§b§lTop " + config.getDisplayName());
+        sender.sendMessage("§8§m                                     ");
+        if (generators == null || generators.size() == 0) {
+            sender.sendMessage("§7No generators loaded yet.");
+        } else {
+            int rank = 1;
+            for (Leaderboard.Entry<GeneratorData> entry : generators.top(TOP_SIZE)) {
+                GeneratorData data = entry.getKey();
+                Location loc = data.getLocation();
+                sender.sendMessage("§e#" + rank++ + " §f" + getPlayerName(data.getPlacer()) + " §8(" + loc.getWorld().getName()
+                        + " " + loc.getBlockX() + ", " + loc.getBlockY() + ", " + loc.getBlockZ() + ") §7- §e"
+                        + entry.getScore() + " §7items");
+            }
+        }
+        sender.sendMessage("§8§m                                     ");
+    }
+
+    private void showPlayerTop(CommandSender sender, String title, Leaderboard<UUID> board, String unit) {
+        sender.sendMessage("§8§m                                     ");
+        sender.sendMessage("§b§l" + title);
+        sender.sendMessage("§8§m                                     ");
+        if (board.size() == 0) {
+            sender.sendMessage("§7Nobody here yet.");
+        } else {
+            int rank = 1;
+            for (Leaderboard.Entry<UUID> entry : board.top(TOP_SIZE)) {
+                sender.sendMessage("§e#" + rank++ + " §f" + getPlayerName(entry.getKey()) + " §7- §e"
+                        + entry.getScore() + " §7" + unit);
+            }
+        }
+        sender.sendMessage("§8§m                                     ");
+    }
+
+    // Nomi non ancora in cache: per ora l'inizio dell'UUID, il nome arriva per la prossima volta
+    private String getPlayerName(UUID uuid) {
+        return plugin.getOwnerNames().getOrPlaceholder(uuid);
+    }
+
+    private String formatTimer(LatencyHistogram histogram) {
+        if (histogram.getCount() == 0) return "§8no data";
+
+        return "§e" + formatNanos(histogram.getQuantile(0.5)) + " §7p50, §e"
+                + formatNanos(histogram.getQuantile(0.99)) + " §7p99, §e"
+                + formatNanos(histogram.getMaxNanos()) + " §7max §8(" + histogram.getCount() + ")";
+    }
+
+    private String formatNanos(long nanos) {
+        if (nanos < 1_000_000) return String.format(Locale.ROOT, "%.1fµs", nanos / 1e3);
+        return String.format(Locale.ROOT, "%.2fms", nanos / 1e6);
+    }
+}
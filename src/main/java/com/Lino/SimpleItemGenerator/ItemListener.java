@@ -0,0 +1,69 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.entity.ItemDespawnEvent;
+import org.bukkit.event.entity.ItemMergeEvent;
+import org.bukkit.event.entity.ItemSpawnEvent;
+import org.bukkit.event.inventory.InventoryPickupItemEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+
+/**
+ * Tiene aggiornato l'ItemDensityTracker. Tutti gli handler sono MONITOR e ignorano
+ * gli eventi cancellati, cosi' contano solo i cambiamenti avvenuti davvero.
+ */
+public class ItemListener implements Listener {
+    private final ItemDensityTracker tracker;
+
+    public ItemListener(ItemDensityTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemSpawn(ItemSpawnEvent e) {
+        tracker.itemAdded(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerDrop(PlayerDropItemEvent e) {
+        tracker.itemAdded(e.getItemDrop());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemMerge(ItemMergeEvent e) {
+        // L'entita' sorgente viene assorbita dal target
+        tracker.itemRemoved(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onEntityPickup(EntityPickupItemEvent e) {
+        // Con un pickup parziale l'entita' resta nel mondo
+        if (e.getRemaining() == 0) {
+            tracker.itemRemoved(e.getItem());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onHopperPickup(InventoryPickupItemEvent e) {
+        tracker.itemRemoved(e.getItem());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDespawn(ItemDespawnEvent e) {
+        tracker.itemRemoved(e.getEntity());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesLoad(EntitiesLoadEvent e) {
+        tracker.entitiesLoaded(e.getChunk(), e.getEntities());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onEntitiesUnload(EntitiesUnloadEvent e) {
+        tracker.entitiesUnloaded(e.getChunk());
+    }
+}
@@ -0,0 +1,138 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Classifica limitata ai primi {@code capacity} posti, aggiornata ad ogni cambio di punteggio
+ * invece di ordinare tutti i giocatori ad ogni richiesta.
+ *
+ * Le scritture sono serializzate, le letture scorrono la skip list senza lock: top(k) costa O(k)
+ * e si puo' chiamare da qualsiasi thread, anche ogni secondo da scoreboard e placeholder.
+ * A parita' di punteggio vince chi ci e' arrivato prima.
+ */
+public class Leaderboard<K> {
+    private static final Comparator<Entry<?>> ORDER = Comparator
+            .comparingLong((Entry<?> entry) -> entry.score).reversed()
+            .thenComparingLong(entry -> entry.sequence);
+
+    private final int capacity;
+    private final ConcurrentSkipListSet<Entry<K>> ranking = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<K, Entry<K>> entries = new ConcurrentHashMap<>();
+    private long nextSequence;
+
+    // Punteggio dell'ultimo posto quando la classifica e' piena: sotto non si entra
+    private volatile long cutoff = Long.MIN_VALUE;
+
+    public Leaderboard(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Records the current score of the key. Scores that cannot enter a full board return
+     * without locking, so this is cheap enough to call on every change.
+     */
+    public void offer(K key, long score) {
+        if (score <= cutoff && !entries.containsKey(key)) return;
+
+        synchronized (this) {
+            Entry<K> previous = entries.get(key);
+            if (previous != null) {
+                if (previous.score == score) return;
+                ranking.remove(previous);
+            } else if (entries.size() >= capacity && score <= cutoff) {
+                return;
+            }
+
+            Entry<K> entry = new Entry<>(key, score, nextSequence++);
+            entries.put(key, entry);
+            ranking.add(entry);
+
+            if (entries.size() > capacity) {
+                entries.remove(ranking.pollLast().key);
+            }
+            updateCutoff();
+        }
+    }
+
+    /**
+     * @return true if the key was on the board, which then has a free place that only a
+     *         full {@link #offer} pass over the candidates can fill correctly
+     */
+    public synchronized boolean remove(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) return false;
+
+        ranking.remove(entry);
+        updateCutoff();
+        return true;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        ranking.clear();
+        cutoff = Long.MIN_VALUE;
+    }
+
+    /**
+     * The first {@code k} entries, best first.
+     */
+    public List<Entry<K>> top(int k) {
+        List<Entry<K>> top = new ArrayList<>(Math.min(k, capacity));
+        for (Entry<K> entry : ranking) {
+            if (top.size() >= k) break;
+            top.add(entry);
+        }
+        return top;
+    }
+
+    /**
+     * @return the 1-based position of the key, or -1 if it is not on the board
+     */
+    public int rankOf(K key) {
+        if (!entries.containsKey(key)) return -1;
+
+        int rank = 1;
+        for (Entry<K> entry : ranking) {
+            if (entry.key.equals(key)) return rank;
+            rank++;
+        }
+        return -1;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private void updateCutoff() {
+        cutoff = entries.size() >= capacity ? ranking.last().score : Long.MIN_VALUE;
+    }
+
+    public static final class Entry<K> {
+        private final K key;
+        private final long score;
+        private final long sequence;
+
+        private Entry(K key, long score, long sequence) {
+            this.key = key;
+            this.score = score;
+            this.sequence = sequence;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public long getScore() {
+            return score;
+        }
+    }
+}
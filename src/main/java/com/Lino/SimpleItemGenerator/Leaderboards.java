@@ -0,0 +1,153 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Le classifiche di /itemgenerator top, aggiornate man mano che i contatori cambiano:
+ * giocatori per oggetti generati e per generatori piazzati, e i generatori di ogni tipo
+ * per oggetti generati.
+ *
+ * Le classifiche dei generatori coprono quelli caricati in memoria, perche' le regioni
+ * si caricano solo quando servono.
+ *
+ * La generazione segna solo generatore e giocatore come cambiati; un task per tick propone i
+ * loro contatori una volta sola, cosi' lo StripedCounter di un giocatore viene sommato al
+ * massimo una volta per tick e non ad ogni drop. Le classifiche sono indietro di un tick.
+ */
+public class Leaderboards {
+    public static final int CAPACITY = 100;
+
+    private final SimpleItemGenerator plugin;
+    private final Leaderboard<UUID> itemsGenerated = new Leaderboard<>(CAPACITY);
+    private final Leaderboard<UUID> generatorsPlaced = new Leaderboard<>(CAPACITY);
+    private final Map<String, Leaderboard<GeneratorData>> generators = new ConcurrentHashMap<>();
+    private final Set<String> pendingRefills = ConcurrentHashMap.newKeySet();
+    private final Set<GeneratorData> changedGenerators = ConcurrentHashMap.newKeySet();
+    private final Set<PlayerData> changedPlayers = ConcurrentHashMap.newKeySet();
+    private TaskScheduler.Task task;
+
+    public Leaderboards(SimpleItemGenerator plugin) {
+        this.plugin = plugin;
+    }
+
+    public void loadPlayers(Collection<PlayerData> players) {
+        for (PlayerData data : players) {
+            itemsGenerated.offer(data.getUuid(), data.getTotalItemsGenerated());
+            generatorsPlaced.offer(data.getUuid(), data.getGeneratorsPlaced());
+        }
+    }
+
+    public synchronized void start() {
+        if (task != null) return;
+
+        task = plugin.getTasks().runGlobalTimer(this::flush, 1L, 1L);
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Called on every generation, from the generator's thread. Only marks the counters as
+     * changed: the next tick offers them to the boards.
+     *
+     * @param owner null if the owner has no player data
+     */
+    public void generated(GeneratorData data, PlayerData owner) {
+        changedGenerators.add(data);
+        if (owner != null) {
+            changedPlayers.add(owner);
+        }
+    }
+
+    private void flush() {
+        if (!changedGenerators.isEmpty()) {
+            Iterator<GeneratorData> it = changedGenerators.iterator();
+            while (it.hasNext()) {
+                GeneratorData data = it.next();
+                it.remove();
+                // Rotto o scaricato dopo l'ultima generazione: non rientra in classifica
+                if (plugin.getActiveGenerators().isActive(data)) {
+                    generatorBoard(data.getGeneratorName()).offer(data, data.getItemsGenerated());
+                }
+            }
+        }
+
+        if (!changedPlayers.isEmpty()) {
+            Iterator<PlayerData> it = changedPlayers.iterator();
+            while (it.hasNext()) {
+                PlayerData data = it.next();
+                it.remove();
+                itemsGenerated.offer(data.getUuid(), data.getTotalItemsGenerated());
+            }
+        }
+    }
+
+    public void placed(GeneratorData data, PlayerData owner) {
+        generatorBoard(data.getGeneratorName()).offer(data, data.getItemsGenerated());
+        generatorsPlaced.offer(owner.getUuid(), owner.getGeneratorsPlaced());
+    }
+
+    public void generatorLoaded(GeneratorData data) {
+        generatorBoard(data.getGeneratorName()).offer(data, data.getItemsGenerated());
+    }
+
+    /**
+     * Called when a generator is broken or unloaded. If it was on its board the free place is
+     * refilled on the next tick, once even if a whole region was unloaded.
+     */
+    public void generatorRemoved(GeneratorData data) {
+        String type = data.getGeneratorName();
+        Leaderboard<GeneratorData> board = generators.get(type);
+        if (board == null || !board.remove(data)) return;
+
+        if (pendingRefills.add(type) && plugin.isEnabled()) {
+            plugin.getTasks().runGlobal(() -> refill(type));
+        }
+    }
+
+    private void refill(String type) {
+        pendingRefills.remove(type);
+
+        Leaderboard<GeneratorData> board = generatorBoard(type);
+        for (GeneratorData data : plugin.getTypeIndex().getGenerators(type)) {
+            board.offer(data, data.getItemsGenerated());
+        }
+    }
+
+    public Leaderboard<UUID> getItemsGenerated() {
+        return itemsGenerated;
+    }
+
+    public Leaderboard<UUID> getGeneratorsPlaced() {
+        return generatorsPlaced;
+    }
+
+    /**
+     * @return the board of that generator type, or null if none of its generators was seen yet
+     */
+    public Leaderboard<GeneratorData> getGenerators(String type) {
+        return generators.get(type);
+    }
+
+    public void clear() {
+        itemsGenerated.clear();
+        generatorsPlaced.clear();
+        generators.clear();
+        pendingRefills.clear();
+        changedGenerators.clear();
+        changedPlayers.clear();
+    }
+
+    private Leaderboard<GeneratorData> generatorBoard(String type) {
+        return generators.computeIfAbsent(type, k -> new Leaderboard<>(CAPACITY));
+    }
+}
@@ -0,0 +1,54 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Store in memoria: con un solo server i limiti contano solo i generatori locali, come prima.
+ * Tiene comunque i conteggi per server, cosi' piu' istanze nello stesso processo (test) si vedono.
+ */
+public class LocalCounterStore implements SharedCounterStore {
+    private final Map<String, Map<UUID, Integer>> servers = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish(String server, Map<UUID, Integer> counts) {
+        Map<UUID, Integer> own = servers.computeIfAbsent(server, key -> new ConcurrentHashMap<>());
+        for (Map.Entry<UUID, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                own.put(entry.getKey(), entry.getValue());
+            } else {
+                own.remove(entry.getKey());
+            }
+        }
+    }
+
+    @Override
+    public void replaceAll(String server, Map<UUID, Integer> counts) {
+        Map<UUID, Integer> own = new ConcurrentHashMap<>();
+        for (Map.Entry<UUID, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > 0) {
+                own.put(entry.getKey(), entry.getValue());
+            }
+        }
+        servers.put(server, own);
+    }
+
+    @Override
+    public Map<UUID, Integer> fetchOthers(String server, Collection<UUID> owners) {
+        Map<UUID, Integer> totals = new HashMap<>();
+        for (Map.Entry<String, Map<UUID, Integer>> entry : servers.entrySet()) {
+            if (entry.getKey().equals(server)) continue;
+
+            for (UUID owner : owners) {
+                Integer count = entry.getValue().get(owner);
+                if (count != null) {
+                    totals.merge(owner, count, Integer::sum);
+                }
+            }
+        }
+        return totals;
+    }
+}
@@ -0,0 +1,116 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Tabella di drop pesata compilata con il metodo alias di Walker/Vose.
+ * Il campionamento costa O(1) (un intero e un double casuali) e la memoria
+ * e' proporzionale al numero di oggetti distinti, non alla somma dei pesi.
+ *
+ * Immutabile dopo la costruzione, quindi sicura da leggere da piu' thread.
+ */
+public final class LootTable {
+    private static final LootTable EMPTY = new LootTable(new ItemStack[0], new double[0], new int[0]);
+
+    private final ItemStack[] items;
+    private final double[] probability;
+    private final int[] alias;
+
+    private LootTable(ItemStack[] items, double[] probability, int[] alias) {
+        this.items = items;
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    public boolean isEmpty() {
+        return items.length == 0;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Picks an entry according to its weight. The returned stack is the shared
+     * template and must be cloned before it is handed out.
+     */
+    public ItemStack sample(RandomGenerator random) {
+        if (items.length == 0) return null;
+
+        int column = random.nextInt(items.length);
+        return random.nextDouble() < probability[column] ? items[column] : items[alias[column]];
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private final List<ItemStack> items = new ArrayList<>();
+        private final List<Double> weights = new ArrayList<>();
+
+        /**
+         * Entries with a weight <= 0 can never be drawn and are skipped.
+         */
+        public Builder add(ItemStack item, double weight) {
+            if (weight > 0) {
+                items.add(item);
+                weights.add(weight);
+            }
+            return this;
+        }
+
+        public LootTable build() {
+            int n = items.size();
+            if (n == 0) return EMPTY;
+
+            double total = 0;
+            for (double weight : weights) {
+                total += weight;
+            }
+
+            // Probabilita' scalate in modo che la media sia 1
+            double[] scaled = new double[n];
+            Deque<Integer> small = new ArrayDeque<>();
+            Deque<Integer> large = new ArrayDeque<>();
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights.get(i) * n / total;
+                (scaled[i] < 1.0 ? small : large).push(i);
+            }
+
+            double[] probability = new double[n];
+            int[] alias = new int[n];
+
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.pop();
+                int more = large.pop();
+
+                probability[less] = scaled[less];
+                alias[less] = more;
+
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                (scaled[more] < 1.0 ? small : large).push(more);
+            }
+
+            // Quelli rimasti valgono 1 a meno di errori di arrotondamento
+            while (!large.isEmpty()) {
+                int index = large.pop();
+                probability[index] = 1.0;
+                alias[index] = index;
+            }
+            while (!small.isEmpty()) {
+                int index = small.pop();
+                probability[index] = 1.0;
+                alias[index] = index;
+            }
+
+            return new LootTable(items.toArray(new ItemStack[0]), probability, alias);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Limiti dei generatori validi su tutta la rete: conteggio locale (OwnerIndex) piu' i conteggi
+ * degli altri server letti dallo SharedCounterStore.
+ *
+ * Il piazzamento non aspetta mai lo store: il generatore conta subito nell'indice locale
+ * (prenotazione ottimistica) e viene pubblicato al prossimo sync; i conteggi degli altri server
+ * dei giocatori online si aggiornano al join e ad ogni sync. Due piazzamenti quasi simultanei
+ * su server diversi possono superare il limite di uno finche' i server non si allineano.
+ */
+public class NetworkLimits {
+    private final OwnerIndex ownerIndex;
+    private final SharedCounterStore store;
+    private final String serverId;
+    private final Logger logger;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SimpleItemGenerator-Network");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Generatori degli altri server, solo per i giocatori online
+    private final Map<UUID, Integer> remoteCounts = new ConcurrentHashMap<>();
+    private final Set<UUID> online = ConcurrentHashMap.newKeySet();
+    // Proprietari con un conteggio locale non ancora pubblicato
+    private final Set<UUID> changed = ConcurrentHashMap.newKeySet();
+    private volatile boolean available;
+
+    public NetworkLimits(OwnerIndex ownerIndex, SharedCounterStore store, String serverId, Logger logger) {
+        this.ownerIndex = ownerIndex;
+        this.store = store;
+        this.serverId = serverId;
+        this.logger = logger;
+    }
+
+    /**
+     * Opens the store and replaces this server's counts with the local ones, in the background.
+     */
+    public void start() {
+        io.execute(() -> {
+            try {
+                store.open();
+                // Non solo publish: i proprietari scesi a 0 mentre il server era spento hanno ancora una riga
+                store.replaceAll(serverId, ownerIndex.getCounts());
+                available = true;
+                fetch(new ArrayList<>(online));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Shared generator counts unavailable, limits count this server only", e);
+            }
+        });
+    }
+
+    /**
+     * The owner's generators on every server, as last known. Never blocks.
+     */
+    public int count(UUID owner) {
+        return ownerIndex.count(owner) + remoteCounts.getOrDefault(owner, 0);
+    }
+
+    /**
+     * Called after the owner placed or removed a generator here.
+     */
+    public void changed(UUID owner) {
+        changed.add(owner);
+    }
+
+    public void playerJoined(UUID player) {
+        online.add(player);
+        io.execute(() -> fetch(List.of(player)));
+    }
+
+    public void playerQuit(UUID player) {
+        online.remove(player);
+        remoteCounts.remove(player);
+    }
+
+    /**
+     * Publishes the changed counts and refreshes those of the online players.
+     * Called periodically from an async task.
+     */
+    public void sync() {
+        io.execute(() -> {
+            publishChanged();
+            fetch(new ArrayList<>(online));
+        });
+    }
+
+    public void shutdown() {
+        io.execute(() -> {
+            publishChanged();
+            try {
+                store.close();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to close the shared generator counts", e);
+            }
+        });
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warning("Timed out publishing the generator counts");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publishChanged() {
+        if (!available || changed.isEmpty()) return;
+
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (UUID owner : changed) {
+            changed.remove(owner);
+            counts.put(owner, ownerIndex.count(owner));
+        }
+
+        try {
+            store.publish(serverId, counts);
+        } catch (IOException e) {
+            // Ritenta al prossimo sync, con il conteggio di allora
+            changed.addAll(counts.keySet());
+            logger.log(Level.WARNING, "Failed to publish generator counts", e);
+        }
+    }
+
+    private void fetch(List<UUID> players) {
+        if (!available || players.isEmpty()) return;
+
+        try {
+            Map<UUID, Integer> counts = store.fetchOthers(serverId, players);
+            for (UUID player : players) {
+                Integer count = counts.get(player);
+                // Uscito nel frattempo: non va tenuto in cache
+                if (count == null || !online.contains(player)) {
+                    remoteCounts.remove(player);
+                } else {
+                    remoteCounts.put(player, count);
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to read generator counts from the other servers", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Container;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Piccolo buffer per l'output in container: accumula gli oggetti generati unendo gli stack
+ * e li inserisce nel container adiacente a blocchi, invece di spawnare un'entita' per drop.
+ *
+ * Usato solo dal main thread.
+ */
+public class OutputBuffer {
+    private static final BlockFace[] FACES = {
+            BlockFace.DOWN, BlockFace.UP, BlockFace.NORTH, BlockFace.SOUTH, BlockFace.WEST, BlockFace.EAST
+    };
+    private static final Set<Material> CONTAINER_TYPES = EnumSet.of(
+            Material.CHEST, Material.TRAPPED_CHEST, Material.BARREL, Material.HOPPER
+    );
+
+    private final List<ItemStack> pending = new ArrayList<>(4);
+    private int bufferedGenerations;
+    private long firstBufferedAt;
+
+    // Ultima faccia dove e' stato trovato un container, evita di riscansionare ad ogni flush
+    private BlockFace containerFace;
+
+    public void add(ItemStack item, long currentTime) {
+        if (bufferedGenerations++ == 0) {
+            firstBufferedAt = currentTime;
+        }
+
+        int remaining = item.getAmount();
+        for (ItemStack stack : pending) {
+            if (remaining == 0) break;
+            if (!stack.isSimilar(item)) continue;
+
+            int moved = Math.min(remaining, stack.getMaxStackSize() - stack.getAmount());
+            if (moved > 0) {
+                stack.setAmount(stack.getAmount() + moved);
+                remaining -= moved;
+            }
+        }
+
+        if (remaining > 0) {
+            item.setAmount(remaining);
+            pending.add(item);
+        }
+    }
+
+    public boolean isFull(int bufferSize) {
+        return bufferedGenerations >= bufferSize;
+    }
+
+    public boolean shouldFlush(int bufferSize, long flushIntervalMillis, long currentTime) {
+        return bufferedGenerations > 0
+                && (bufferedGenerations >= bufferSize || currentTime - firstBufferedAt >= flushIntervalMillis);
+    }
+
+    /**
+     * Moves the buffered stacks into the container next to the generator.
+     *
+     * @return true if the buffer is now empty, false if there is no container or it is full
+     */
+    public boolean flush(Block generatorBlock) {
+        if (pending.isEmpty()) return true;
+
+        Inventory inventory = findContainer(generatorBlock);
+        if (inventory == null) return false;
+
+        Collection<ItemStack> leftover = inventory.addItem(pending.toArray(new ItemStack[0])).values();
+        pending.clear();
+        pending.addAll(leftover);
+
+        if (pending.isEmpty()) {
+            bufferedGenerations = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Empties the buffer, e.g. to drop its contents when the generator is removed.
+     */
+    public List<ItemStack> drain() {
+        List<ItemStack> items = new ArrayList<>(pending);
+        pending.clear();
+        bufferedGenerations = 0;
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    private Inventory findContainer(Block generatorBlock) {
+        if (containerFace != null) {
+            Inventory inventory = getInventory(generatorBlock.getRelative(containerFace));
+            if (inventory != null) return inventory;
+            containerFace = null;
+        }
+
+        for (BlockFace face : FACES) {
+            Inventory inventory = getInventory(generatorBlock.getRelative(face));
+            if (inventory != null) {
+                containerFace = face;
+                return inventory;
+            }
+        }
+        return null;
+    }
+
+    private static Inventory getInventory(Block block) {
+        if (!CONTAINER_TYPES.contains(block.getType())) return null;
+
+        BlockState state = block.getState();
+        return state instanceof Container ? ((Container) state).getInventory() : null;
+    }
+}
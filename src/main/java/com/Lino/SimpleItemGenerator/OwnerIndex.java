@@ -0,0 +1,106 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice proprietario -> generatori, aggiornato da startGenerator/removeGenerator.
+ * Sostituisce la scansione di tutti i generatori ad ogni piazzamento.
+ *
+ * I conteggi includono anche i generatori delle regioni non caricate e vengono persistiti
+ * dal RegionManager; gli insiemi di generatori contengono solo quelli caricati.
+ */
+public class OwnerIndex {
+    private final Map<UUID, Set<GeneratorData>> generatorsByOwner = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> counts = new ConcurrentHashMap<>();
+    private volatile boolean countsChanged;
+
+    /**
+     * Registers a newly placed generator.
+     */
+    public void add(GeneratorData data) {
+        track(data);
+        counts.merge(data.getPlacer(), 1, Integer::sum);
+        countsChanged = true;
+    }
+
+    /**
+     * Unregisters a generator that has been removed for good.
+     */
+    public void remove(GeneratorData data) {
+        untrack(data);
+        counts.computeIfPresent(data.getPlacer(), (uuid, count) -> count > 1 ? count - 1 : null);
+        countsChanged = true;
+    }
+
+    /**
+     * Registers a generator loaded from storage, without changing the counts.
+     */
+    public void track(GeneratorData data) {
+        generatorsByOwner.computeIfAbsent(data.getPlacer(), uuid -> ConcurrentHashMap.newKeySet()).add(data);
+    }
+
+    /**
+     * Unregisters a generator unloaded to storage, without changing the counts.
+     */
+    public void untrack(GeneratorData data) {
+        generatorsByOwner.computeIfPresent(data.getPlacer(), (uuid, generators) -> {
+            generators.remove(data);
+            return generators.isEmpty() ? null : generators;
+        });
+    }
+
+    /**
+     * Subtracts generators deleted from storage without being loaded, e.g. by a purge.
+     */
+    public void removeCounts(Map<UUID, Integer> removed) {
+        for (Map.Entry<UUID, Integer> entry : removed.entrySet()) {
+            counts.computeIfPresent(entry.getKey(), (uuid, count) -> count > entry.getValue() ? count - entry.getValue() : null);
+        }
+        countsChanged = true;
+    }
+
+    public int count(UUID owner) {
+        return counts.getOrDefault(owner, 0);
+    }
+
+    /**
+     * @return the owner's generators that are currently loaded
+     */
+    public Set<GeneratorData> getGenerators(UUID owner) {
+        Set<GeneratorData> generators = generatorsByOwner.get(owner);
+        return generators == null ? Collections.emptySet() : Collections.unmodifiableSet(generators);
+    }
+
+    public void setCounts(Map<UUID, Integer> loadedCounts) {
+        counts.clear();
+        counts.putAll(loadedCounts);
+        countsChanged = false;
+    }
+
+    /**
+     * @return a copy of the counts if they changed since the last call, otherwise null
+     */
+    public Map<UUID, Integer> pollChangedCounts() {
+        if (!countsChanged) return null;
+
+        countsChanged = false;
+        return new HashMap<>(counts);
+    }
+
+    /**
+     * @return a copy of every owner's count
+     */
+    public Map<UUID, Integer> getCounts() {
+        return new HashMap<>(counts);
+    }
+
+    public void clear() {
+        generatorsByOwner.clear();
+        counts.clear();
+    }
+}
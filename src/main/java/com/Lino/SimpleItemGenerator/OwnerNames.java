@@ -0,0 +1,139 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Bukkit;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nomi dei proprietari per pannelli e classifiche, senza getOfflinePlayer() sul main thread:
+ * per un giocatore mai entrato in questa sessione puo' leggere il disco o chiedere il profilo
+ * a Mojang. Cache LRU limitata, riempita al join; i nomi mancanti si risolvono in asincrono
+ * (getOfflinePlayer passa dalla usercache del server) e una sola volta per UUID.
+ *
+ * Le lookup girano su un thread dedicato, non sul ForkJoinPool comune, perche' possono bloccare
+ * sull'I/O. Anche un UUID che il server non conosce resta in cache per UNKNOWN_TTL, cosi' i
+ * pannelli e le classifiche non rilanciano la lookup ad ogni render.
+ */
+public class OwnerNames {
+    public static final int CAPACITY = 1000;
+    private static final long UNKNOWN_TTL = 10 * 60 * 1000L;
+
+    private final Map<UUID, String> names = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, String> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    // UUID senza nome -> fino a quando non si riprova
+    private final Map<UUID, Long> unknown = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, Long> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+    private final Map<UUID, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    // Un solo thread, che si ferma quando non ci sono lookup
+    private final ThreadPoolExecutor lookups = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+        Thread thread = new Thread(r, "SimpleItemGenerator-Names");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OwnerNames() {
+        lookups.allowCoreThreadTimeOut(true);
+    }
+
+    public void put(UUID uuid, String name) {
+        if (name == null) return;
+
+        synchronized (names) {
+            names.put(uuid, name);
+            unknown.remove(uuid);
+        }
+    }
+
+    /**
+     * @return the name if cached, otherwise null and the name starts resolving in the background
+     */
+    public String getCached(UUID uuid) {
+        String name;
+        synchronized (names) {
+            name = names.get(uuid);
+        }
+        if (name == null) {
+            resolve(uuid);
+        }
+        return name;
+    }
+
+    /**
+     * @return the cached name, or the start of the UUID while the name is resolving
+     */
+    public String getOrPlaceholder(UUID uuid) {
+        String name = getCached(uuid);
+        return name != null ? name : placeholder(uuid);
+    }
+
+    /**
+     * Completes off the main thread when resolved from the server; with null if the server
+     * does not know the player, also without a lookup while that answer is recent.
+     */
+    public CompletableFuture<String> resolve(UUID uuid) {
+        synchronized (names) {
+            String name = names.get(uuid);
+            if (name != null) return CompletableFuture.completedFuture(name);
+
+            Long retryAt = unknown.get(uuid);
+            if (retryAt != null) {
+                if (System.currentTimeMillis() < retryAt) return CompletableFuture.completedFuture(null);
+                unknown.remove(uuid);
+            }
+        }
+
+        CompletableFuture<String> future = pending.computeIfAbsent(uuid, key -> CompletableFuture.supplyAsync(() -> {
+            String name = Bukkit.getOfflinePlayer(key).getName();
+            if (name != null) {
+                put(key, name);
+            } else {
+                synchronized (names) {
+                    unknown.put(key, System.currentTimeMillis() + UNKNOWN_TTL);
+                }
+            }
+            return name;
+        }, lookups));
+        // Fuori da computeIfAbsent: se e' gia' completato la remove gira subito su questo thread
+        future.whenComplete((name, error) -> pending.remove(uuid, future));
+        return future;
+    }
+
+    /**
+     * @return the UUID of a cached name, ignoring case, or null
+     */
+    public UUID findUuid(String name) {
+        synchronized (names) {
+            for (Map.Entry<UUID, String> entry : names.entrySet()) {
+                if (entry.getValue().equalsIgnoreCase(name)) return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    public void clear() {
+        synchronized (names) {
+            names.clear();
+            unknown.clear();
+        }
+    }
+
+    public static String placeholder(UUID uuid) {
+        return uuid.toString().substring(0, 8);
+    }
+}
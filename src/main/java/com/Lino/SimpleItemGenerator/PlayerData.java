@@ -4,31 +4,68 @@ import java.util.UUID;
 
 public class PlayerData {
     private final UUID uuid;
-    private int generatorsPlaced;
-    private long totalItemsGenerated;
-    private long firstPlaced;
-    private long lastActive;
+    // Letti anche dal thread di salvataggio
+    private volatile int generatorsPlaced;
+    private final StripedCounter totalItemsGenerated = new StripedCounter(0);
+    private volatile long firstPlaced;
+    private volatile long lastActive;
+
+    // Cambiato dall'ultimo salvataggio
+    private volatile boolean dirty;
 
     public PlayerData(UUID uuid) {
         this.uuid = uuid;
         this.generatorsPlaced = 0;
-        this.totalItemsGenerated = 0;
         this.firstPlaced = System.currentTimeMillis();
         this.lastActive = System.currentTimeMillis();
     }
 
     public void incrementGeneratorsPlaced() {
         generatorsPlaced++;
-        updateLastActive();
+        lastActive = System.currentTimeMillis();
+        dirty = true;
     }
 
-    public void incrementTotalItemsGenerated() {
-        totalItemsGenerated++;
-        updateLastActive();
+    /**
+     * Chiamato ad ogni generazione. Non tocca lastActive: i generatori di un giocatore
+     * che non entra piu' continuano a produrre.
+     */
+    public void addTotalItemsGenerated(long amount) {
+        totalItemsGenerated.add(amount);
+        dirty = true;
     }
 
-    private void updateLastActive() {
-        lastActive = System.currentTimeMillis();
+    /**
+     * Join, quit: l'ultima volta che il giocatore e' stato visto, per inactive:.
+     */
+    public void markActive(long now) {
+        lastActive = now;
+        dirty = true;
+    }
+
+    /**
+     * Clears the dirty flag. Changes made after this call mark the player dirty again,
+     * so a snapshot taken right after it never loses one.
+     *
+     * @return whether the player changed since the last call
+     */
+    public boolean pollDirty() {
+        if (!dirty) return false;
+
+        dirty = false;
+        return true;
+    }
+
+    /**
+     * A detached copy of the saved values, for writing on another thread.
+     */
+    public PlayerData snapshot() {
+        PlayerData copy = new PlayerData(uuid);
+        copy.generatorsPlaced = generatorsPlaced;
+        copy.totalItemsGenerated.set(getTotalItemsGenerated());
+        copy.firstPlaced = firstPlaced;
+        copy.lastActive = lastActive;
+        return copy;
     }
 
     // Getters and Setters
@@ -45,11 +82,11 @@ public class PlayerData {
     }
 
     public long getTotalItemsGenerated() {
-        return totalItemsGenerated;
+        return totalItemsGenerated.get();
     }
 
     public void setTotalItemsGenerated(long totalItemsGenerated) {
-        this.totalItemsGenerated = totalItemsGenerated;
+        this.totalItemsGenerated.set(totalItemsGenerated);
     }
 
     public long getFirstPlaced() {
@@ -0,0 +1,48 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * playerdata.yml per i backend BINARY e YAML. Il plugin passa solo i giocatori cambiati,
+ * ma il file li contiene tutti: qui si tiene una copia dell'ultimo stato scritto.
+ *
+ * Usato solo dal thread di I/O.
+ */
+public class PlayerDataFile {
+    private final File file;
+    private final Logger logger;
+    private final Map<UUID, PlayerData> saved = new HashMap<>();
+
+    public PlayerDataFile(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    public Map<UUID, PlayerData> load() {
+        Map<UUID, PlayerData> players = YamlGeneratorStore.readPlayers(file, logger);
+
+        saved.clear();
+        for (PlayerData data : players.values()) {
+            saved.put(data.getUuid(), data.snapshot());
+        }
+        return players;
+    }
+
+    /**
+     * Merges the changed players into the saved state and rewrites the file atomically.
+     */
+    public void save(Collection<PlayerData> changed) throws IOException {
+        if (changed.isEmpty()) return;
+
+        for (PlayerData data : changed) {
+            saved.put(data.getUuid(), data.snapshot());
+        }
+        YamlGeneratorStore.writePlayers(file, saved.values());
+    }
+}
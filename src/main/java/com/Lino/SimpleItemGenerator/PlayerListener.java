@@ -0,0 +1,45 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerCommandSendEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+public class PlayerListener implements Listener {
+    private final SimpleItemGenerator plugin;
+
+    public PlayerListener(SimpleItemGenerator plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent e) {
+        plugin.getLimitCache().refresh(e.getPlayer());
+        plugin.getOwnerNames().put(e.getPlayer().getUniqueId(), e.getPlayer().getName());
+        plugin.getNetworkLimits().playerJoined(e.getPlayer().getUniqueId());
+        plugin.markActive(e.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        plugin.getLimitCache().invalidate(e.getPlayer().getUniqueId());
+        plugin.getNetworkLimits().playerQuit(e.getPlayer().getUniqueId());
+        plugin.markActive(e.getPlayer().getUniqueId());
+    }
+
+    // Molti plugin di permessi ricalcolano i comandi visibili dopo una modifica: se succede il
+    // limite si aggiorna subito, altrimenti scade comunque nella cache
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onCommandSend(PlayerCommandSendEvent e) {
+        plugin.getLimitCache().refresh(e.getPlayer());
+    }
+
+    // I permessi possono essere diversi per mondo
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent e) {
+        plugin.getLimitCache().refresh(e.getPlayer());
+    }
+}
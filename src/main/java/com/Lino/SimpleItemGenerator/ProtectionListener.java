@@ -0,0 +1,82 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBurnEvent;
+import org.bukkit.event.block.BlockExplodeEvent;
+import org.bukkit.event.block.BlockFromToEvent;
+import org.bukkit.event.block.BlockPistonExtendEvent;
+import org.bukkit.event.block.BlockPistonRetractEvent;
+import org.bukkit.event.entity.EntityExplodeEvent;
+
+/**
+ * Impedisce che i blocchi dei generatori vengano distrutti o spostati senza passare da
+ * BlockBreakEvent: esplosioni, pistoni, fuoco e liquidi. Tutti i controlli usano
+ * GeneratorBlocks, quindi cannoni di TNT e orologi di pistoni costano solo test di bit.
+ */
+public class ProtectionListener implements Listener {
+    private final GeneratorBlocks blocks;
+
+    // protection.*
+    private volatile boolean explosions = true;
+    private volatile boolean pistons = true;
+    private volatile boolean burn = true;
+    private volatile boolean fluids = true;
+
+    public ProtectionListener(GeneratorBlocks blocks) {
+        this.blocks = blocks;
+    }
+
+    public void loadSettings(ConfigurationSection config) {
+        explosions = config == null || config.getBoolean("prevent-explosions", true);
+        pistons = config == null || config.getBoolean("prevent-pistons", true);
+        burn = config == null || config.getBoolean("prevent-burn", true);
+        fluids = config == null || config.getBoolean("prevent-fluids", true);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onEntityExplode(EntityExplodeEvent e) {
+        if (!explosions) return;
+
+        blocks.removeFrom(e.getEntity().getWorld(), e.blockList());
+    }
+
+    // Letti, respawn anchor...
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockExplode(BlockExplodeEvent e) {
+        if (!explosions) return;
+
+        blocks.removeFrom(e.getBlock().getWorld(), e.blockList());
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonExtend(BlockPistonExtendEvent e) {
+        if (pistons && blocks.containsAny(e.getBlock().getWorld(), e.getBlocks())) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onPistonRetract(BlockPistonRetractEvent e) {
+        if (pistons && blocks.containsAny(e.getBlock().getWorld(), e.getBlocks())) {
+            e.setCancelled(true);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockBurn(BlockBurnEvent e) {
+        if (burn && blocks.contains(e.getBlock())) {
+            e.setCancelled(true);
+        }
+    }
+
+    // Acqua e lava che scorrono verso il blocco
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onBlockFromTo(BlockFromToEvent e) {
+        if (fluids && blocks.contains(e.getToBlock())) {
+            e.setCancelled(true);
+        }
+    }
+}
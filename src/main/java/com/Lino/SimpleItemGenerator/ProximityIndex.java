@@ -0,0 +1,119 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chunk entro activation-radius da almeno un giocatore online, per ogni raggio usato nella config.
+ *
+ * Ogni chunk coperto ha il numero di giocatori che lo coprono: un giocatore che cambia chunk
+ * toglie il quadrato vecchio e aggiunge quello nuovo, i movimenti dentro lo stesso chunk non
+ * costano nulla. Il task dei generatori fa solo una lookup per generatore.
+ */
+public class ProximityIndex {
+    private final WorldIds worldIds;
+
+    // Chunk in cui si trova ogni giocatore online
+    private final Map<UUID, Long> positions = new ConcurrentHashMap<>();
+
+    // raggio -> chunk coperto -> giocatori che lo coprono
+    private volatile Map<Integer, Map<Long, Integer>> coverage = Map.of();
+
+    public ProximityIndex(WorldIds worldIds) {
+        this.worldIds = worldIds;
+    }
+
+    /**
+     * @return false if the generator has an activation radius and no online player is in range
+     */
+    public boolean isActive(GeneratorData data) {
+        int radius = data.getConfig().getActivationRadius();
+        if (radius <= 0) return true;
+
+        Map<Long, Integer> covered = coverage.get(radius);
+        if (covered == null) return true; // Raggio non ancora indicizzato: meglio generare che bloccare
+
+        Location loc = data.getLocation();
+        return covered.containsKey(worldIds.chunkKey(loc.getWorld(), loc.getBlockX() >> 4, loc.getBlockZ() >> 4));
+    }
+
+    /**
+     * Moves the player to the chunk of the location. Does nothing if the chunk did not change.
+     */
+    public void update(UUID player, Location location) {
+        World world = location.getWorld();
+        if (world == null) return;
+
+        long key = worldIds.chunkKey(world, location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        Long previous = positions.get(player);
+        if (previous != null && previous == key) return;
+
+        synchronized (this) {
+            previous = positions.put(player, key);
+            if (previous != null && previous == key) return;
+
+            for (Map.Entry<Integer, Map<Long, Integer>> entry : coverage.entrySet()) {
+                if (previous != null) {
+                    cover(entry.getValue(), previous, entry.getKey(), -1);
+                }
+                cover(entry.getValue(), key, entry.getKey(), 1);
+            }
+        }
+    }
+
+    public synchronized void remove(UUID player) {
+        Long previous = positions.remove(player);
+        if (previous == null) return;
+
+        for (Map.Entry<Integer, Map<Long, Integer>> entry : coverage.entrySet()) {
+            cover(entry.getValue(), previous, entry.getKey(), -1);
+        }
+    }
+
+    /**
+     * Rebuilds the index for the activation radii of the given configurations,
+     * from the positions of the players already online.
+     */
+    public synchronized void setRadii(Iterable<GeneratorConfig> configs) {
+        Map<Integer, Map<Long, Integer>> rebuilt = new HashMap<>();
+        for (GeneratorConfig config : configs) {
+            int radius = config.getActivationRadius();
+            if (radius > 0 && !rebuilt.containsKey(radius)) {
+                Map<Long, Integer> covered = new ConcurrentHashMap<>();
+                for (long key : positions.values()) {
+                    cover(covered, key, radius, 1);
+                }
+                rebuilt.put(radius, covered);
+            }
+        }
+        coverage = Map.copyOf(rebuilt);
+    }
+
+    public Set<Integer> getRadii() {
+        return coverage.keySet();
+    }
+
+    public synchronized void clear() {
+        positions.clear();
+        coverage = Map.of();
+    }
+
+    private static void cover(Map<Long, Integer> covered, long center, int radius, int delta) {
+        int worldId = WorldIds.worldOf(center);
+        int centerX = WorldIds.chunkX(center);
+        int centerZ = WorldIds.chunkZ(center);
+
+        for (int x = centerX - radius; x <= centerX + radius; x++) {
+            for (int z = centerZ - radius; z <= centerZ + radius; z++) {
+                // merge con null come risultato toglie il chunk quando nessuno lo copre piu'
+                covered.merge(WorldIds.chunkKey(worldId, x, z), delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+
+/**
+ * Tiene aggiornato il ProximityIndex: conta solo quando un giocatore cambia chunk.
+ */
+public class ProximityListener implements Listener {
+    private final ProximityIndex index;
+
+    public ProximityListener(ProximityIndex index) {
+        this.index = index;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent e) {
+        index.update(e.getPlayer().getUniqueId(), e.getPlayer().getLocation());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        index.remove(e.getPlayer().getUniqueId());
+    }
+
+    // Chiamato per ogni movimento: esce subito se il chunk e' lo stesso
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent e) {
+        Location from = e.getFrom();
+        Location to = e.getTo();
+        if (to == null) return;
+        if (from.getBlockX() >> 4 == to.getBlockX() >> 4 && from.getBlockZ() >> 4 == to.getBlockZ() >> 4
+                && from.getWorld() == to.getWorld()) return;
+
+        index.update(e.getPlayer().getUniqueId(), to);
+    }
+
+    // PlayerTeleportEvent estende PlayerMoveEvent ma ha un proprio HandlerList
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerTeleport(PlayerTeleportEvent e) {
+        if (e.getTo() != null) {
+            index.update(e.getPlayer().getUniqueId(), e.getTo());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerRespawn(PlayerRespawnEvent e) {
+        index.update(e.getPlayer().getUniqueId(), e.getRespawnLocation());
+    }
+}
@@ -0,0 +1,416 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generatori divisi in regioni di 32x32 chunk (come i file .mca di Minecraft), lette e scritte
+ * tramite il GeneratorStore configurato.
+ *
+ * Una regione viene letta in modo asincrono quando si carica il suo primo chunk e viene salvata
+ * e rimossa dalla memoria quando si scarica l'ultimo, quindi l'avvio costa solo il conteggio dei
+ * generatori per proprietario (serve per i limiti) e le regioni attorno ai chunk gia' caricati.
+ * Tutto l'I/O passa da un unico thread, cosi' salvataggi e letture della stessa regione non si
+ * sovrappongono mai e il backend non deve essere thread-safe.
+ */
+public class RegionManager {
+    static final int REGION_SHIFT = 5;
+    // Le regioni hanno di solito pochi generatori: la tabella cresce quando serve
+    private static final int REGION_TABLE_CAPACITY = 16;
+
+    private final SimpleItemGenerator plugin;
+    private final WorldIds worldIds;
+    private final GeneratorStore backend;
+    private final Logger logger;
+    private final ExecutorService io = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "SimpleItemGenerator-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Su Folia i chunk si caricano e scaricano da piu' thread di regione: apertura, conteggio
+    // dei chunk e rimozione di una regione passano da compute sulla sua chiave
+    private final Map<Long, Region> regions = new ConcurrentHashMap<>();
+    // Regioni lette dallo storage e non ancora scaricate, nell'ordine del thread di I/O: solo li'
+    private final Set<String> storedInMemory = new HashSet<>();
+
+    public RegionManager(SimpleItemGenerator plugin, WorldIds worldIds, GeneratorStore backend) {
+        this.plugin = plugin;
+        this.worldIds = worldIds;
+        this.backend = backend;
+        this.logger = plugin.getLogger();
+    }
+
+    public static int regionOf(int blockCoord) {
+        return blockCoord >> 4 >> REGION_SHIFT;
+    }
+
+    /**
+     * Opens the backend (running its migrations) and loads the per-owner counts.
+     * Runs off the main thread during startup.
+     */
+    public void initialize(OwnerIndex ownerIndex) throws IOException {
+        ownerIndex.setCounts(backend.open());
+    }
+
+    public Map<UUID, PlayerData> loadPlayers() throws IOException {
+        return backend.loadPlayers();
+    }
+
+    public void chunkLoaded(Chunk chunk) {
+        openRegion(chunk.getWorld(), chunk.getX() >> REGION_SHIFT, chunk.getZ() >> REGION_SHIFT, true);
+    }
+
+    public void chunkUnloaded(Chunk chunk) {
+        long key = regionKey(chunk.getWorld(), chunk.getX(), chunk.getZ());
+        Region[] emptied = new Region[1];
+        regions.computeIfPresent(key, (k, region) -> {
+            if (--region.loadedChunks > 0) return region;
+
+            // Rimossa sotto il lock della chiave: un chunk caricato adesso apre una regione nuova,
+            // che legge lo storage dopo la scrittura messa in coda da evict()
+            emptied[0] = region;
+            region.evicted = true;
+            queueEviction(region);
+            return null;
+        });
+
+        if (emptied[0] != null) {
+            unloadGenerators(emptied[0]);
+        }
+    }
+
+    public void worldUnloaded(World world) {
+        int worldId = worldIds.find(world);
+        if (worldId < 0) return;
+
+        for (Map.Entry<Long, Region> entry : regions.entrySet()) {
+            if (WorldIds.worldOf(entry.getKey()) == worldId) {
+                evict(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Deletes the matching generators of the regions that are not in memory, on the I/O thread
+     * after every write queued so far. The regions in memory are left to the caller, as loaded
+     * generators; a region opened from now on reads the storage after the purge.
+     *
+     * @return the number of generators deleted for each owner
+     */
+    public CompletableFuture<Map<UUID, Integer>> purgeStored(StoredGeneratorFilter filter) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return backend.purge(filter.excluding(new HashSet<>(storedInMemory)));
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, io);
+    }
+
+    public void recordPlace(GeneratorData data) {
+        Region region = regionFor(data.getLocation());
+        region.generators.put(data);
+        region.pending.add(new GeneratorChange(GeneratorChange.Type.PLACE, StoredGenerator.of(data)));
+    }
+
+    public void recordRemove(GeneratorData data) {
+        Region region = regionFor(data.getLocation());
+        region.generators.remove(data);
+        region.pending.add(new GeneratorChange(GeneratorChange.Type.REMOVE, StoredGenerator.of(data)));
+    }
+
+    public void markDirty(GeneratorData data) {
+        regionFor(data.getLocation()).dirtyCounters.add(data);
+    }
+
+    /**
+     * Collects what changed in every open region since the last snapshot: the queued places and
+     * removes, plus a copy of each generator marked dirty. Costs only as much as what changed,
+     * so it can run on the main thread and leave the live generators to gameplay.
+     */
+    public Snapshot snapshot() {
+        Snapshot snapshot = new Snapshot();
+        for (Region region : regions.values()) {
+            List<GeneratorChange> changes = drain(region);
+            if (!changes.isEmpty()) {
+                snapshot.regions.add(region);
+                snapshot.changes.add(changes);
+                snapshot.fullStates.add(fullStateIfWanted(region));
+            }
+        }
+        snapshot.ownerCounts = plugin.getOwnerIndex().pollChangedCounts();
+        return snapshot;
+    }
+
+    /**
+     * Writes the snapshot and the changed players on the I/O thread, in the order the
+     * snapshots were taken.
+     */
+    public CompletableFuture<Void> write(Snapshot snapshot, List<PlayerData> players) {
+        return CompletableFuture.runAsync(() -> {
+            GeneratorMetrics metrics = plugin.getMetrics();
+            long start = System.nanoTime();
+            try {
+                for (int i = 0; i < snapshot.regions.size(); i++) {
+                    write(snapshot.regions.get(i), snapshot.changes.get(i), snapshot.fullStates.get(i));
+                }
+                if (snapshot.ownerCounts != null) {
+                    backend.saveOwnerCounts(snapshot.ownerCounts);
+                }
+                backend.commit();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error saving generators", e);
+            }
+            metrics.record(GeneratorMetrics.Timer.SAVE_GENERATORS, System.nanoTime() - start);
+
+            if (players.isEmpty()) return;
+
+            start = System.nanoTime();
+            try {
+                backend.savePlayers(players);
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error saving player data", e);
+            }
+            metrics.record(GeneratorMetrics.Timer.SAVE_PLAYERS, System.nanoTime() - start);
+        }, io);
+    }
+
+    public void shutdown() {
+        io.execute(() -> {
+            try {
+                backend.close();
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error closing generator storage", e);
+            }
+        });
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Timed out waiting for generator I/O to finish");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Region regionFor(Location location) {
+        long key = regionKey(location.getWorld(), location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        Region region = regions.get(key);
+        if (region == null) {
+            // Non dovrebbe succedere (il chunk e' caricato), ma non perdiamo dati
+            region = openRegion(location.getWorld(), regionOf(location.getBlockX()), regionOf(location.getBlockZ()), false);
+        }
+        return region;
+    }
+
+    /**
+     * Returns the open region, opening it if needed. Two threads opening the same region get
+     * the same instance and only one load is queued.
+     */
+    private Region openRegion(World world, int regionX, int regionZ, boolean chunkLoaded) {
+        return regions.compute(WorldIds.chunkKey(worldIds.id(world), regionX, regionZ), (k, existing) -> {
+            if (existing == null) {
+                existing = new Region(world, regionX, regionZ, worldIds);
+                // In coda sotto il lock della chiave, quindi dopo la scrittura di un'evict precedente
+                queueLoad(existing);
+            }
+            if (chunkLoaded) {
+                existing.loadedChunks++;
+            }
+            return existing;
+        });
+    }
+
+    private void queueLoad(Region region) {
+        World world = region.world;
+        int regionX = region.regionX;
+        int regionZ = region.regionZ;
+        io.execute(() -> {
+            storedInMemory.add(StoredGeneratorFilter.regionName(world.getName(), regionX, regionZ));
+            try {
+                List<StoredGenerator> stored = backend.loadRegion(world.getName(), regionX, regionZ);
+                if (stored.isEmpty()) {
+                    region.loaded = true;
+                    return;
+                }
+
+                plugin.getTasks().runGlobal(() -> applyLoaded(region, stored));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to load generator region " + regionX + "," + regionZ
+                        + " of " + world.getName(), e);
+            }
+        });
+    }
+
+    private void applyLoaded(Region region, List<StoredGenerator> stored) {
+        if (region.evicted) return;
+
+        for (StoredGenerator generator : stored) {
+            Location loc = new Location(region.world, generator.getX(), generator.getY(), generator.getZ());
+            // Piazzato mentre la regione si stava caricando: vince il piu' recente
+            if (region.generators.get(loc) != null) continue;
+
+            GeneratorData data = plugin.restoreGenerator(loc, generator);
+            if (data == null) {
+                // Tipo non piu' configurato: lo conserviamo per le compattazioni
+                region.orphans.add(generator);
+                continue;
+            }
+            region.generators.put(data);
+        }
+        region.loaded = true;
+    }
+
+    private void evict(long key) {
+        Region[] removed = new Region[1];
+        regions.computeIfPresent(key, (k, region) -> {
+            removed[0] = region;
+            region.evicted = true;
+            queueEviction(region);
+            return null;
+        });
+
+        if (removed[0] != null) {
+            unloadGenerators(removed[0]);
+        }
+    }
+
+    // Chiamato dentro compute sulla chiave della regione, gia' marcata evicted
+    private void queueEviction(Region region) {
+        List<GeneratorChange> changes = drain(region);
+        List<StoredGenerator> fullState = fullStateIfWanted(region);
+        io.execute(() -> {
+            write(region, changes, fullState);
+            backend.unloadRegion(region.world.getName(), region.regionX, region.regionZ);
+            storedInMemory.remove(StoredGeneratorFilter.regionName(region.world.getName(), region.regionX, region.regionZ));
+        });
+    }
+
+    private void unloadGenerators(Region region) {
+        for (GeneratorData data : region.generators.values()) {
+            plugin.unloadGenerator(data);
+        }
+    }
+
+    private List<GeneratorChange> drain(Region region) {
+        List<GeneratorChange> changes = new ArrayList<>();
+
+        GeneratorChange change;
+        while ((change = region.pending.poll()) != null) {
+            changes.add(change);
+        }
+
+        Iterator<GeneratorData> it = region.dirtyCounters.iterator();
+        while (it.hasNext()) {
+            GeneratorData data = it.next();
+            it.remove();
+
+            // Rimosso dopo essere stato marcato: il suo REMOVE e' gia' tra le modifiche
+            if (!region.generators.isActive(data)) continue;
+
+            changes.add(new GeneratorChange(GeneratorChange.Type.COUNTER, StoredGenerator.of(data)));
+        }
+        return changes;
+    }
+
+    /**
+     * @param fullState the state captured with the changes, or null if it was not captured:
+     *                  a store that wants to compact asks for it and gets it with a later save
+     */
+    private void write(Region region, List<GeneratorChange> changes, List<StoredGenerator> fullState) {
+        if (changes.isEmpty()) return;
+
+        try {
+            // Il thread di I/O non legge i generatori vivi: solo lo stato copiato insieme alle modifiche
+            backend.saveRegion(region.world.getName(), region.regionX, region.regionZ, changes, () -> {
+                if (fullState == null) {
+                    region.compactionWanted = true;
+                }
+                return fullState;
+            });
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error saving generator region " + region.regionX + "," + region.regionZ
+                    + " of " + region.world.getName(), e);
+        }
+    }
+
+    /**
+     * Copies every generator of the region, on the thread taking the snapshot and together with
+     * its changes, if the store asked for it. Never before the stored generators have been applied,
+     * or the copy would miss them.
+     */
+    private List<StoredGenerator> fullStateIfWanted(Region region) {
+        if (!region.compactionWanted || !region.loaded) return null;
+
+        region.compactionWanted = false;
+        List<StoredGenerator> generators = new ArrayList<>(region.generators.size() + region.orphans.size());
+        for (GeneratorData data : region.generators.values()) {
+            generators.add(StoredGenerator.of(data));
+        }
+        generators.addAll(region.orphans);
+        return generators;
+    }
+
+    private long regionKey(World world, int chunkX, int chunkZ) {
+        return WorldIds.chunkKey(worldIds.id(world), chunkX >> REGION_SHIFT, chunkZ >> REGION_SHIFT);
+    }
+
+    /**
+     * The changes of the open regions at one point in time, see {@link #snapshot()}.
+     */
+    public static final class Snapshot {
+        private final List<Region> regions = new ArrayList<>();
+        private final List<List<GeneratorChange>> changes = new ArrayList<>();
+        private final List<List<StoredGenerator>> fullStates = new ArrayList<>();
+        private Map<UUID, Integer> ownerCounts;
+
+        private Snapshot() {
+        }
+    }
+
+    private static class Region {
+        private final World world;
+        private final int regionX;
+        private final int regionZ;
+        private final GeneratorTable generators;
+        private final Queue<GeneratorChange> pending = new ConcurrentLinkedQueue<>();
+        private final Set<GeneratorData> dirtyCounters = ConcurrentHashMap.newKeySet();
+        private final List<StoredGenerator> orphans = new CopyOnWriteArrayList<>();
+        // Cambiato solo dentro compute sulla chiave della regione
+        private int loadedChunks;
+        private volatile boolean evicted;
+        // I generatori salvati sono stati letti e applicati: da qui lo stato in memoria e' completo
+        private volatile boolean loaded;
+        // Il backend voleva compattare ma non aveva lo stato completo
+        private volatile boolean compactionWanted;
+
+        private Region(World world, int regionX, int regionZ, WorldIds worldIds) {
+            this.world = world;
+            this.generators = new GeneratorTable(worldIds, REGION_TABLE_CAPACITY);
+            this.regionX = regionX;
+            this.regionZ = regionZ;
+        }
+    }
+}
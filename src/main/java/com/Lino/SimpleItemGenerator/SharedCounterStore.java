@@ -0,0 +1,43 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Conteggi dei generatori per proprietario condivisi tra i server di una rete.
+ *
+ * Ogni server pubblica i propri conteggi, che sono la verita' per quel server, e legge la somma
+ * di quelli degli altri: una pubblicazione persa o ripetuta si corregge alla successiva.
+ * Le chiamate arrivano da un solo thread, mai dal main thread.
+ *
+ * Un altro plugin puo' fornire un'implementazione remota (Redis, un database di rete...)
+ * registrandola nel ServicesManager di Bukkit, con network.type SERVICE.
+ */
+public interface SharedCounterStore {
+
+    default void open() throws IOException {
+    }
+
+    /**
+     * Replaces this server's counts for the given owners; a count of 0 removes the owner.
+     */
+    void publish(String server, Map<UUID, Integer> counts) throws IOException;
+
+    /**
+     * Replaces every count of this server with the given ones, atomically: owners missing from
+     * {@code counts}, e.g. whose generators were removed while the server was offline, no
+     * longer count for this server.
+     */
+    void replaceAll(String server, Map<UUID, Integer> counts) throws IOException;
+
+    /**
+     * @return the counts of the given owners summed over every server except this one,
+     *         owners without generators elsewhere may be missing
+     */
+    Map<UUID, Integer> fetchOthers(String server, Collection<UUID> owners) throws IOException;
+
+    default void close() throws IOException {
+    }
+}
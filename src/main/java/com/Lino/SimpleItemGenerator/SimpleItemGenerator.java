@@ -1,67 +1,123 @@
 package com.Lino.SimpleItemGenerator;
 
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.Chunk;
 import org.bukkit.Location;
-import org.bukkit.Material;
-import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
-public class SimpleItemGenerator extends JavaPlugin {
+public final class SimpleItemGenerator extends JavaPlugin {
 
-    // Usa ConcurrentHashMap per thread safety
-    private final Map<Location, GeneratorData> activeGenerators = new ConcurrentHashMap<>();
-    private final Map<String, GeneratorConfig> generatorConfigs = new HashMap<>();
+    // Sostituito intero ad ogni reload, mai modificato
+    private volatile GeneratorRegistry registry = GeneratorRegistry.EMPTY;
+    private final AtomicBoolean reloading = new AtomicBoolean();
     private final Map<UUID, PlayerData> playerData = new ConcurrentHashMap<>();
-
-    // Cache per ottimizzare i check sui chunk
-    private final Set<Chunk> loadedChunksCache = ConcurrentHashMap.newKeySet();
-    private long lastChunkCacheUpdate = 0;
-
-    private File dataFile;
-    private YamlConfiguration dataConfig;
-    private BukkitTask globalGeneratorTask;
-    private BukkitTask saveTask;
-
-    // Flag per batch saving
-    private volatile boolean needsSave = false;
-    private long lastSaveTime = System.currentTimeMillis();
+    private final ActivityIndex activityIndex = new ActivityIndex();
+    private final GeneratorMetrics metrics = new GeneratorMetrics();
+
+    // Main thread su Spigot/Paper, thread di regione su Folia
+    private final TaskScheduler tasks = TaskScheduler.create(this);
+
+    // Indice per chunk aggiornato dagli eventi: niente getChunk() nel task globale
+    private final WorldIds worldIds = new WorldIds();
+    private final GeneratorTable activeGenerators = new GeneratorTable(worldIds);
+    // Un solo UUID per proprietario e una sola String per tipo, condivisi da tutti i generatori
+    private final Interner<UUID> owners = new Interner<>();
+    private final Interner<String> types = new Interner<>();
+    private final TickBudget tickBudget = new TickBudget(tasks);
+    private final GenerationEngine engine = new GenerationEngine(tasks, worldIds, metrics, tickBudget,
+            this::runGenerator, activeGenerators::size);
+    private final ChunkIndex chunkIndex = new ChunkIndex(worldIds);
+    private final StartupChunks startupChunks = new StartupChunks(worldIds);
+    private final ItemDensityTracker itemTracker = new ItemDensityTracker(worldIds, tasks);
+    private final OwnerIndex ownerIndex = new OwnerIndex();
+    private final TypeIndex typeIndex = new TypeIndex();
+    private final ProximityIndex proximityIndex = new ProximityIndex(worldIds);
+    private final GeneratorBlocks generatorBlocks = new GeneratorBlocks(worldIds);
+    private final ProtectionListener protectionListener = new ProtectionListener(generatorBlocks);
+    private final GeneratorItems generatorItems = new GeneratorItems(this);
+    private final Leaderboards leaderboards = new Leaderboards(this);
+    private final OwnerNames ownerNames = new OwnerNames();
+    private GeneratorLimitCache limitCache;
+
+    // general.performance
+    private int maxNearbyItems;
+    private int itemCheckRadius;
+
+    // general.catch-up
+    private boolean catchUpEnabled;
+    private int catchUpMaxCycles;
+
+    private RegionManager generatorStore;
+    private NetworkLimits networkLimits;
+    private TaskScheduler.Task saveTask;
+    private TaskScheduler.Task metricsTask;
+    private TaskScheduler.Task networkTask;
+    private GeneratorPurge purge;
 
     @Override
     public void onEnable() {
+        // Chunk ed entita' si seguono dagli eventi fin da subito: su Folia nessun thread puo'
+        // elencare i chunk gia' caricati, quindi non si aspetta la fine dell'avvio per ascoltarli
+        getServer().getPluginManager().registerEvents(new ChunkListener(this, startupChunks), this);
+        getServer().getPluginManager().registerEvents(new ItemListener(itemTracker), this);
+        if (!tasks.isRegionThreaded()) {
+            // Main thread: i chunk caricati prima del plugin (spawn) si possono ancora leggere
+            for (World world : Bukkit.getWorlds()) {
+                for (Chunk chunk : world.getLoadedChunks()) {
+                    startupChunks.loaded(chunk);
+                    chunkIndex.chunkLoaded(chunk);
+                }
+                itemTracker.countLoadedChunks(world);
+            }
+        }
+
         // Inizializzazione asincrona per non bloccare il server
         CompletableFuture.runAsync(() -> {
             saveDefaultConfig();
             setupDataFile();
+            setupNetworkLimits();
+            loadPlayerData();
             loadConfigurations();
+            loadPerformanceSettings();
         }).thenRun(() -> {
             // Return to main thread for Bukkit operations
-            Bukkit.getScheduler().runTask(this, () -> {
-                loadGenerators();
-                startGlobalTask();
+            tasks.runGlobal(() -> {
+                limitCache = new GeneratorLimitCache(getConfig().getInt("general.default-generator-limit", 5));
+
+                // Carica solo le regioni attorno ai chunk gia' caricati, le altre al ChunkLoadEvent
+                startupChunks.release(generatorStore::chunkLoaded);
+                tickBudget.start();
+                engine.start();
+                leaderboards.start();
                 startAutoSaveTask();
+                startMetricsTask();
 
                 // Register commands and events
                 getCommand("itemgenerator").setExecutor(new ItemGeneratorCommand(this));
                 getServer().getPluginManager().registerEvents(new GeneratorListener(this), this);
-
-                // Load player data
-                loadPlayerData();
+                getServer().getPluginManager().registerEvents(new PlayerListener(this), this);
+                getServer().getPluginManager().registerEvents(new ProximityListener(proximityIndex), this);
+                getServer().getPluginManager().registerEvents(protectionListener, this);
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    proximityIndex.update(player.getUniqueId(), player.getLocation());
+                    ownerNames.put(player.getUniqueId(), player.getName());
+                    networkLimits.playerJoined(player.getUniqueId());
+                }
 
                 getLogger().info("SimpleItemGenerator v" + getDescription().getVersion() + " enabled!");
             });
@@ -70,101 +126,127 @@ public class SimpleItemGenerator extends JavaPlugin {
 
     @Override
     public void onDisable() {
-        if (globalGeneratorTask != null) {
-            globalGeneratorTask.cancel();
+        engine.stop();
+        tickBudget.stop();
+        leaderboards.stop();
+        synchronized (this) {
+            if (purge != null) {
+                purge.cancel();
+                purge = null;
+            }
         }
         if (saveTask != null) {
             saveTask.cancel();
         }
+        if (metricsTask != null) {
+            metricsTask.cancel();
+        }
+        if (networkTask != null) {
+            networkTask.cancel();
+        }
 
-        // Save everything asynchronously
-        CompletableFuture.runAsync(() -> {
-            saveGenerators();
-            savePlayerData();
-        }).join(); // Wait for completion before disabling
+        flushOutputBuffers();
+
+        // Ultimo salvataggio: aspetta che il thread di I/O abbia scritto tutto
+        saveChanges().join();
+
+        if (generatorStore != null) {
+            generatorStore.shutdown();
+        }
+        if (networkLimits != null) {
+            networkLimits.shutdown();
+        }
 
         activeGenerators.clear();
+        engine.clear();
+        chunkIndex.clear();
+        ownerIndex.clear();
+        typeIndex.clear();
+        proximityIndex.clear();
+        generatorBlocks.clear();
+        itemTracker.clear();
+        leaderboards.clear();
+        ownerNames.clear();
         playerData.clear();
-        loadedChunksCache.clear();
+        activityIndex.clear();
     }
 
-    private void startGlobalTask() {
-        // Ottimizzazione: Processa i generatori in batch e solo quelli in chunk caricati
-        globalGeneratorTask = Bukkit.getScheduler().runTaskTimer(this, () -> {
-            long currentTime = System.currentTimeMillis();
-
-            // Update chunk cache ogni 5 secondi
-            if (currentTime - lastChunkCacheUpdate > 5000) {
-                updateChunkCache();
-                lastChunkCacheUpdate = currentTime;
-            }
-
-            // Processa solo un subset di generatori per tick per distribuire il carico
-            List<Map.Entry<Location, GeneratorData>> entries = activeGenerators.entrySet().stream()
-                    .filter(entry -> isChunkLoadedCached(entry.getKey()))
-                    .collect(Collectors.toList());
-
-            int batchSize = Math.max(1, entries.size() / 5); // Processa 20% dei generatori per tick
-            int startIndex = ThreadLocalRandom.current().nextInt(Math.max(1, entries.size()));
+    private void runGenerator(GeneratorData data, long currentTime) {
+        Location location = data.getLocation();
 
-            for (int i = 0; i < batchSize && i < entries.size(); i++) {
-                Map.Entry<Location, GeneratorData> entry = entries.get((startIndex + i) % entries.size());
-                Location location = entry.getKey();
-                GeneratorData data = entry.getValue();
+        // Nessun giocatore vicino: il ciclo viene saltato, non recuperato quando qualcuno arriva
+        if (proximityIndex.isActive(data)) {
+            long start = System.nanoTime();
+            generateItem(location, data, currentTime);
+            metrics.record(GeneratorMetrics.Timer.GENERATE_ITEM, System.nanoTime() - start);
+        } else {
+            metrics.increment(GeneratorMetrics.Counter.SKIPPED_NO_PLAYERS);
+        }
 
-                if (data.canGenerate(currentTime)) {
-                    // Esegui la generazione in modo asincrono per non bloccare il main thread
-                    Bukkit.getScheduler().runTask(this, () -> generateItem(location, data));
-                    data.setLastGeneration(currentTime);
-                }
-            }
-        }, 20L, 4L); // Esegui ogni 4 tick invece di 20 per processare meno generatori per volta
+        // Il generatore potrebbe essere stato rimosso durante generateItem
+        if (activeGenerators.isActive(data)) {
+            data.setLastGeneration(currentTime);
+            engine.schedule(data);
+            // Anche senza output: l'ultima generazione salvata serve al catch-up
+            generatorStore.markDirty(data);
+        }
     }
 
-    private void updateChunkCache() {
-        loadedChunksCache.clear();
-        activeGenerators.keySet().stream()
-                .map(loc -> loc.getChunk())
-                .filter(Chunk::isLoaded)
-                .forEach(loadedChunksCache::add);
+    private void startAutoSaveTask() {
+        // Snapshot di quello che e' cambiato sul main thread, scrittura sul thread di I/O
+        int saveInterval = getConfig().getInt("general.auto-save-interval", 5) * 60 * 20; // Convert to ticks
+        saveTask = tasks.runGlobalTimer(this::saveChanges, saveInterval, saveInterval);
     }
 
-    private boolean isChunkLoadedCached(Location location) {
-        return loadedChunksCache.contains(location.getChunk());
-    }
+    private void startMetricsTask() {
+        if (metricsTask != null) {
+            metricsTask.cancel();
+            metricsTask = null;
+        }
 
-    private void startAutoSaveTask() {
-        // Save task che salva solo quando necessario
-        int saveInterval = getConfig().getInt("general.auto-save-interval", 5) * 60 * 20; // Convert to ticks
-        saveTask = Bukkit.getScheduler().runTaskTimerAsynchronously(this, () -> {
-            if (needsSave || System.currentTimeMillis() - lastSaveTime > 300000) { // Force save ogni 5 minuti
-                saveGenerators();
-                savePlayerData();
-                needsSave = false;
-                lastSaveTime = System.currentTimeMillis();
+        // File Prometheus per il textfile collector di node_exporter, vuoto = disattivato
+        String fileName = getConfig().getString("general.metrics.file", "");
+        if (fileName.isEmpty()) return;
+
+        Path file = getDataFolder().toPath().resolve(fileName);
+        long interval = Math.max(1, getConfig().getInt("general.metrics.interval", 15)) * 20L;
+        metricsTask = tasks.runAsyncTimer(() -> {
+            try {
+                metrics.writePrometheus(file);
+            } catch (IOException e) {
+                getLogger().warning("Failed to write metrics to " + file + ": " + e.getMessage());
             }
-        }, saveInterval, saveInterval);
+        }, interval, interval);
     }
 
-    private void generateItem(Location location, GeneratorData data) {
-        // Check if chunk is loaded (double check necessario)
-        if (!location.getChunk().isLoaded()) return;
-
+    private void generateItem(Location location, GeneratorData data, long currentTime) {
+        // Solo i generatori in chunk caricati sono schedulati, quindi getBlock() non carica chunk
         // Check if block is still present
-        if (location.getBlock().getType() != data.getConfig().getBlockType()) {
+        Block block = location.getBlock();
+        if (block.getType() != data.getConfig().getBlockType()) {
             removeGenerator(location);
             return;
         }
 
         GeneratorConfig config = data.getConfig();
+        if (config.getOutputMode() == GeneratorConfig.OutputMode.CONTAINER) {
+            generateIntoContainer(block, data, currentTime);
+            return;
+        }
+
+        // Troppi item in giro: la produzione va in pausa fino al prossimo ciclo
+        if (itemTracker.isCrowded(location, itemCheckRadius, maxNearbyItems)) {
+            metrics.increment(GeneratorMetrics.Counter.SKIPPED_CROWDED);
+            return;
+        }
+
         ItemStack item = config.getRandomItem();
 
         if (item != null) {
             // Generate the item
             Location dropLocation = location.clone().add(0.5, 1.2, 0.5);
 
-            // Ottimizzazione: Drop item senza fisica naturale se ci sono troppi items
-            if (location.getWorld().getNearbyEntities(dropLocation, 5, 5, 5).size() < 50) {
+            if (config.shouldDropNaturally()) {
                 location.getWorld().dropItemNaturally(dropLocation, item);
             } else {
                 location.getWorld().dropItem(dropLocation, item).setVelocity(new org.bukkit.util.Vector(0, 0, 0));
@@ -175,13 +257,58 @@ public class SimpleItemGenerator extends JavaPlugin {
                 playGenerationEffect(dropLocation);
             }
 
-            // Update statistics
-            data.incrementItemsGenerated();
+            recordGeneration(data);
+        }
+    }
+
+    private void generateIntoContainer(Block block, GeneratorData data, long currentTime) {
+        GeneratorConfig config = data.getConfig();
+        OutputBuffer buffer = data.getOutputBuffer();
+
+        // Buffer pieno e container pieno (o assente): la produzione va in pausa, niente entita'
+        if (buffer.isFull(config.getOutputBufferSize()) && !buffer.flush(block)) {
+            metrics.increment(GeneratorMetrics.Counter.SKIPPED_CONTAINER_FULL);
+            return;
+        }
 
-            // Update player statistics
-            PlayerData pData = playerData.get(data.getPlacer());
-            if (pData != null) {
-                pData.incrementTotalItemsGenerated();
+        ItemStack item = config.getRandomItem();
+        if (item == null) return;
+
+        buffer.add(item, currentTime);
+        if (buffer.shouldFlush(config.getOutputBufferSize(), config.getOutputFlushInterval() * 1000L, currentTime)) {
+            buffer.flush(block);
+        }
+
+        if (config.hasParticles() && ThreadLocalRandom.current().nextInt(3) == 0) {
+            playGenerationEffect(block.getLocation().add(0.5, 1.2, 0.5));
+        }
+
+        recordGeneration(data);
+    }
+
+    private void recordGeneration(GeneratorData data) {
+        // Update statistics: il contatore del generatore ha un solo scrittore, quello del giocatore e' un LongAdder
+        data.incrementItemsGenerated();
+        metrics.increment(GeneratorMetrics.Counter.ITEMS_GENERATED);
+
+        // Update player statistics
+        PlayerData pData = playerData.get(data.getPlacer());
+        if (pData != null) {
+            pData.addTotalItemsGenerated(1);
+        }
+        leaderboards.generated(data, pData);
+    }
+
+    // Svuota i buffer dei container prima dello spegnimento, quello che non entra viene droppato
+    private void flushOutputBuffers() {
+        for (GeneratorData data : activeGenerators.values()) {
+            if (!data.hasBufferedOutput() || !chunkIndex.isLoaded(data)) continue;
+
+            Location loc = data.getLocation();
+            if (!data.getOutputBuffer().flush(loc.getBlock())) {
+                for (ItemStack item : data.getOutputBuffer().drain()) {
+                    loc.getWorld().dropItemNaturally(loc.clone().add(0.5, 1.2, 0.5), item);
+                }
             }
         }
     }
@@ -198,234 +325,465 @@ public class SimpleItemGenerator extends JavaPlugin {
     }
 
     public void startGenerator(Location loc, String generatorName, UUID placer) {
-        GeneratorConfig config = generatorConfigs.get(generatorName);
+        GeneratorConfig config = registry.get(generatorName);
         if (config == null) return;
 
-        GeneratorData data = new GeneratorData(generatorName, config, placer);
-        activeGenerators.put(loc, data);
+        GeneratorData data = new GeneratorData(loc, worldIds.id(loc.getWorld()), types.intern(generatorName), config,
+                owners.intern(placer));
+        GeneratorData previous = activeGenerators.put(data);
+        generatorBlocks.add(loc);
+        if (previous != null) {
+            engine.unschedule(previous);
+            chunkIndex.remove(previous);
+            ownerIndex.remove(previous);
+            networkLimits.changed(previous.getPlacer());
+            typeIndex.remove(previous);
+            leaderboards.generatorRemoved(previous);
+        }
+        ownerIndex.add(data);
+        networkLimits.changed(data.getPlacer());
+        typeIndex.add(data);
+        if (chunkIndex.add(data)) {
+            engine.schedule(data);
+        }
+        generatorStore.recordPlace(data);
 
         // Update player statistics
         PlayerData pData = getPlayerData(placer);
         pData.incrementGeneratorsPlaced();
-
-        // Mark for save invece di salvare immediatamente
-        needsSave = true;
+        activityIndex.update(pData);
+        leaderboards.placed(data, pData);
     }
 
     public void removeGenerator(Location loc) {
         GeneratorData data = activeGenerators.remove(loc);
         if (data == null) return;
 
-        needsSave = true;
-    }
+        generatorBlocks.remove(loc);
 
-    private void loadConfigurations() {
-        generatorConfigs.clear();
-        ConfigurationSection section = getConfig().getConfigurationSection("generators");
-
-        if (section != null) {
-            for (String key : section.getKeys(false)) {
-                try {
-                    GeneratorConfig config = new GeneratorConfig(section.getConfigurationSection(key));
-                    generatorConfigs.put(key, config);
-                } catch (Exception e) {
-                    getLogger().log(Level.WARNING, "Failed to load generator config: " + key, e);
-                }
+        engine.unschedule(data);
+        chunkIndex.remove(data);
+        ownerIndex.remove(data);
+        networkLimits.changed(data.getPlacer());
+        typeIndex.remove(data);
+        leaderboards.generatorRemoved(data);
+        generatorStore.recordRemove(data);
+
+        // Gli oggetti ancora nel buffer del container non vanno persi
+        if (data.hasBufferedOutput()) {
+            for (ItemStack item : data.getOutputBuffer().drain()) {
+                loc.getWorld().dropItemNaturally(loc.clone().add(0.5, 1.2, 0.5), item);
             }
         }
 
-        getLogger().info("Loaded " + generatorConfigs.size() + " generator configurations");
     }
 
-    private void setupDataFile() {
-        dataFile = new File(getDataFolder(), "data.yml");
-        if (!dataFile.exists()) {
-            try {
-                dataFile.createNewFile();
-            } catch (IOException e) {
-                getLogger().severe("Failed to create data file: " + e.getMessage());
-            }
+    /**
+     * Starts removing the matching generators: those in storage first, then the loaded ones in batches.
+     *
+     * @return false if another purge is still running
+     */
+    public synchronized boolean startPurge(GeneratorQuery query, CommandSender sender) {
+        if (purge != null) return false;
+
+        purge = new GeneratorPurge(this, query, sender);
+        purge.start();
+        return true;
+    }
+
+    synchronized void purgeFinished(GeneratorPurge finished) {
+        if (purge == finished) {
+            purge = null;
         }
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
     }
 
-    private void loadGenerators() {
-        if (!dataConfig.contains("generators")) return;
+    private void loadConfigurations() {
+        registry = readRegistry();
+        getLogger().info("Loaded " + registry.size() + " generator configurations");
+    }
 
-        ConfigurationSection generatorsSection = dataConfig.getConfigurationSection("generators");
-        if (generatorsSection == null) return;
+    // Parsing e modelli degli oggetti: va bene anche fuori dal main thread
+    private GeneratorRegistry readRegistry() {
+        GeneratorRegistry loaded = GeneratorRegistry.load(getConfig().getConfigurationSection("generators"), getLogger());
+        generatorItems.rebuild(loaded.getConfigs());
+        proximityIndex.setRadii(loaded.getConfigs().values());
+        return loaded;
+    }
 
-        int loaded = 0;
-        for (String key : generatorsSection.getKeys(false)) {
-            try {
-                ConfigurationSection genSection = generatorsSection.getConfigurationSection(key);
-                if (genSection == null) continue;
+    private void loadPerformanceSettings() {
+        maxNearbyItems = getConfig().getInt("general.performance.max-nearby-items", 50);
+        itemCheckRadius = getConfig().getInt("general.performance.item-check-radius", 5);
+        itemTracker.setRecountInterval(getConfig().getLong("general.performance.chunk-cache-update", 5) * 1000L);
+        tickBudget.configure(getConfig().getLong("general.performance.tick-budget", 2000),
+                getConfig().getDouble("general.performance.lag-threshold", 40.0));
+        catchUpEnabled = getConfig().getBoolean("general.catch-up.enabled", false);
+        catchUpMaxCycles = Math.max(0, getConfig().getInt("general.catch-up.max-cycles", 64));
+        protectionListener.loadSettings(getConfig().getConfigurationSection("protection"));
+    }
 
-                ConfigurationSection locSection = genSection.getConfigurationSection("location");
-                String generatorName = genSection.getString("type");
-                UUID placer = UUID.fromString(genSection.getString("placer", "00000000-0000-0000-0000-000000000000"));
-                long itemsGenerated = genSection.getLong("items-generated", 0);
+    private void setupDataFile() {
+        generatorStore = new RegionManager(this, worldIds, createBackend());
 
-                if (locSection == null || generatorName == null) continue;
+        try {
+            generatorStore.initialize(ownerIndex);
+        } catch (IOException e) {
+            getLogger().log(Level.SEVERE, "Failed to read generator data", e);
+        }
+    }
+
+    private void setupNetworkLimits() {
+        String serverId = getConfig().getString("network.server-id", "");
+        if (serverId.isEmpty()) {
+            serverId = String.valueOf(getServer().getPort());
+        }
 
-                Location loc = Location.deserialize(locSection.getValues(false));
-                GeneratorConfig config = generatorConfigs.get(generatorName);
+        networkLimits = new NetworkLimits(ownerIndex, createCounterStore(), serverId, getLogger());
+        networkLimits.start();
 
-                if (config != null) {
-                    GeneratorData data = new GeneratorData(generatorName, config, placer);
-                    data.setItemsGenerated(itemsGenerated);
-                    activeGenerators.put(loc, data);
-                    loaded++;
-                }
-            } catch (Exception e) {
-                getLogger().log(Level.WARNING, "Failed to load generator: " + key, e);
+        long interval = Math.max(1, getConfig().getInt("network.sync-interval", 10)) * 20L;
+        networkTask = tasks.runAsyncTimer(networkLimits::sync, interval, interval);
+    }
+
+    private SharedCounterStore createCounterStore() {
+        String type = getConfig().getString("network.type", "LOCAL").toUpperCase(Locale.ROOT);
+        switch (type) {
+            case "LOCAL":
+                return new LocalCounterStore();
+            case "SQLITE": {
+                File file = new File(getConfig().getString("network.file", "generator-counts.db"));
+                return new SqliteCounterStore(file.isAbsolute() ? file : new File(getDataFolder(), file.getPath()));
+            }
+            case "SERVICE": {
+                // Fornito da un altro plugin, es. su Redis
+                SharedCounterStore service = getServer().getServicesManager().load(SharedCounterStore.class);
+                if (service != null) return service;
+
+                getLogger().warning("No SharedCounterStore service registered, limits count this server only");
+                return new LocalCounterStore();
             }
+            default:
+                getLogger().warning("Unknown network type " + type + ", using LOCAL");
+                return new LocalCounterStore();
         }
+    }
 
-        getLogger().info("Loaded " + loaded + " active generators");
+    private GeneratorStore createBackend() {
+        String type = getConfig().getString("general.storage.type", "BINARY").toUpperCase(Locale.ROOT);
+        switch (type) {
+            case "YAML":
+                return new YamlGeneratorStore(getDataFolder(), getLogger());
+            case "SQLITE":
+                return new SqliteGeneratorStore(getDataFolder(), getLogger());
+            case "BINARY":
+                return new BinaryRegionStore(getDataFolder(), getLogger());
+            default:
+                getLogger().warning("Unknown storage type " + type + ", using BINARY");
+                return new BinaryRegionStore(getDataFolder(), getLogger());
+        }
     }
 
-    public void saveGenerators() {
-        try {
-            dataConfig.set("generators", null);
-            int i = 0;
-
-            for (Map.Entry<Location, GeneratorData> entry : activeGenerators.entrySet()) {
-                ConfigurationSection section = dataConfig.createSection("generators." + i++);
-                section.set("location", entry.getKey().serialize());
-                section.set("type", entry.getValue().getGeneratorName());
-                section.set("placer", entry.getValue().getPlacer().toString());
-                section.set("items-generated", entry.getValue().getItemsGenerated());
+    /**
+     * Registers a generator read from its region file.
+     *
+     * @return the generator, or null if its type is no longer configured
+     */
+    public GeneratorData restoreGenerator(Location loc, StoredGenerator stored) {
+        GeneratorConfig config = registry.get(stored.getType());
+        if (config == null) return null;
+
+        GeneratorData data = new GeneratorData(loc, worldIds.id(loc.getWorld()), types.intern(stored.getType()), config,
+                owners.intern(stored.getPlacer()));
+        data.setItemsGenerated(stored.getItemsGenerated());
+        if (stored.getLastGeneration() > 0) {
+            data.setLastGeneration(stored.getLastGeneration());
+        }
+        activeGenerators.put(data);
+        generatorBlocks.add(loc);
+        ownerIndex.track(data);
+        typeIndex.add(data);
+        leaderboards.generatorLoaded(data);
+        if (chunkIndex.add(data)) {
+            // Il catch-up tocca il mondo: su Folia va fatto dal thread che possiede il chunk
+            tasks.runAt(loc, () -> {
+                if (!activeGenerators.isActive(data)) return;
+
+                catchUp(data, System.currentTimeMillis());
+                engine.schedule(data);
+            });
+        }
+        return data;
+    }
+
+    /**
+     * Drops a generator from memory when its region is unloaded. It stays in storage.
+     */
+    public void unloadGenerator(GeneratorData data) {
+        if (activeGenerators.remove(data)) {
+            generatorBlocks.remove(data.getLocation());
+        }
+        engine.unschedule(data);
+        chunkIndex.remove(data);
+        ownerIndex.untrack(data);
+        typeIndex.remove(data);
+        leaderboards.generatorRemoved(data);
+    }
+
+    /**
+     * Takes a snapshot of the generators and players changed since the last save and writes it on
+     * the I/O thread. The snapshot only costs as much as what changed; call it from the main thread.
+     */
+    public CompletableFuture<Void> saveChanges() {
+        if (generatorStore == null) return CompletableFuture.completedFuture(null);
+
+        List<PlayerData> players = new ArrayList<>();
+        for (PlayerData data : playerData.values()) {
+            if (data.pollDirty()) {
+                players.add(data.snapshot());
             }
+        }
+        return generatorStore.write(generatorStore.snapshot(), players);
+    }
 
-            dataConfig.save(dataFile);
+    private void loadPlayerData() {
+        try {
+            playerData.putAll(generatorStore.loadPlayers());
+            playerData.values().forEach(activityIndex::update);
+            leaderboards.loadPlayers(playerData.values());
         } catch (IOException e) {
-            getLogger().severe("Error saving data: " + e.getMessage());
+            getLogger().log(Level.SEVERE, "Failed to load player data", e);
         }
     }
 
-    public void saveGeneratorsAsync() {
-        needsSave = true; // Mark for batch save invece di salvare immediatamente
+    public ItemStack createGeneratorItem(String generatorName) {
+        return generatorItems.create(generatorName);
     }
 
-    private void loadPlayerData() {
-        File playerDataFile = new File(getDataFolder(), "playerdata.yml");
-        if (!playerDataFile.exists()) return;
+    /**
+     * Re-reads config.yml off the main thread and then swaps in the new configuration.
+     * Generator and player data are not touched.
+     *
+     * @return completes on the main (global) thread with the number of generator types that changed
+     */
+    public CompletableFuture<Integer> reloadPlugin() {
+        if (!reloading.compareAndSet(false, true)) {
+            return CompletableFuture.failedFuture(new IllegalStateException("A reload is already running"));
+        }
 
-        YamlConfiguration playerConfig = YamlConfiguration.loadConfiguration(playerDataFile);
-        ConfigurationSection section = playerConfig.getConfigurationSection("players");
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        CompletableFuture.supplyAsync(() -> {
+            reloadConfig();
+            return readRegistry();
+        }).whenComplete((loaded, error) -> tasks.runGlobal(() -> {
+            try {
+                if (error != null) {
+                    getLogger().log(Level.SEVERE, "Failed to reload the configuration", error);
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(applyRegistry(loaded));
+                }
+            } finally {
+                reloading.set(false);
+            }
+        }));
+        return result;
+    }
 
-        if (section != null) {
-            for (String uuid : section.getKeys(false)) {
-                try {
-                    UUID playerUUID = UUID.fromString(uuid);
-                    PlayerData data = new PlayerData(playerUUID);
+    private int applyRegistry(GeneratorRegistry loaded) {
+        GeneratorRegistry previous = registry;
+        registry = loaded;
 
-                    ConfigurationSection playerSection = section.getConfigurationSection(uuid);
-                    data.setGeneratorsPlaced(playerSection.getInt("generators-placed", 0));
-                    data.setTotalItemsGenerated(playerSection.getLong("total-items-generated", 0));
+        loadPerformanceSettings();
+        limitCache.setDefaultLimit(getConfig().getInt("general.default-generator-limit", 5));
+        startMetricsTask();
 
-                    playerData.put(playerUUID, data);
-                } catch (Exception e) {
-                    getLogger().warning("Failed to load player data for: " + uuid);
-                }
+        // Solo i tipi cambiati: gli altri generatori tengono la configurazione che hanno
+        Set<String> changed = loaded.changedTypes(previous);
+        for (String type : changed) {
+            GeneratorConfig newConfig = loaded.get(type);
+            if (newConfig == null) continue; // Tipo rimosso: i generatori piazzati restano com'erano
+
+            // Il cooldown potrebbe essere cambiato: ogni partizione aggiorna le scadenze nel suo heap
+            engine.reconfigure(new ArrayList<>(typeIndex.getGenerators(type)), newConfig);
+        }
+
+        getLogger().info("Reloaded " + loaded.size() + " generator configurations, " + changed.size() + " changed");
+        return changed.size();
+    }
+
+    /**
+     * Called when the chunk of these generators has just loaded.
+     */
+    public void activateGenerators(List<GeneratorData> generators) {
+        long currentTime = System.currentTimeMillis();
+        for (GeneratorData data : generators) {
+            if (activeGenerators.isActive(data)) {
+                catchUp(data, currentTime);
+                engine.schedule(data);
             }
         }
     }
 
-    private void savePlayerData() {
-        File playerDataFile = new File(getDataFolder(), "playerdata.yml");
-        YamlConfiguration playerConfig = new YamlConfiguration();
+    /**
+     * Delivers in one go what the generator would have produced while its chunk was unloaded,
+     * capped at max-cycles. Costs one sample per missed cycle and a handful of merged stacks.
+     */
+    private void catchUp(GeneratorData data, long currentTime) {
+        if (!catchUpEnabled) return;
 
-        for (Map.Entry<UUID, PlayerData> entry : playerData.entrySet()) {
-            ConfigurationSection section = playerConfig.createSection("players." + entry.getKey().toString());
-            section.set("generators-placed", entry.getValue().getGeneratorsPlaced());
-            section.set("total-items-generated", entry.getValue().getTotalItemsGenerated());
+        GeneratorConfig config = data.getConfig();
+        long cooldown = data.getCooldownMillis();
+        long missed = (currentTime - data.getLastGeneration()) / cooldown;
+        if (missed <= 0) return;
+
+        // Il prossimo ciclo resta allineato a dove sarebbe caduto
+        data.setLastGeneration(data.getLastGeneration() + missed * cooldown);
+        generatorStore.markDirty(data);
+
+        int maxCycles = config.getCatchUpMaxCycles() >= 0 ? config.getCatchUpMaxCycles() : catchUpMaxCycles;
+        int cycles = (int) Math.min(missed, maxCycles);
+        if (cycles <= 0) return;
+
+        // Blocco cambiato: ci pensa generateItem al prossimo giro
+        Location location = data.getLocation();
+        Block block = location.getBlock();
+        if (block.getType() != config.getBlockType()) return;
+
+        if (config.getOutputMode() == GeneratorConfig.OutputMode.CONTAINER) {
+            OutputBuffer buffer = data.getOutputBuffer();
+            for (ItemStack stack : config.getRandomItems(cycles)) {
+                buffer.add(stack, currentTime);
+            }
+            // Quello che non entra resta nel buffer e mette in pausa il generatore
+            buffer.flush(block);
+        } else {
+            // Come un ciclo normale: con troppi item in giro la produzione persa non viene consegnata
+            if (itemTracker.isCrowded(location, itemCheckRadius, maxNearbyItems)) return;
+
+            Location dropLocation = location.clone().add(0.5, 1.2, 0.5);
+            for (ItemStack stack : config.getRandomItems(cycles)) {
+                if (config.shouldDropNaturally()) {
+                    location.getWorld().dropItemNaturally(dropLocation, stack);
+                } else {
+                    location.getWorld().dropItem(dropLocation, stack).setVelocity(new org.bukkit.util.Vector(0, 0, 0));
+                }
+            }
         }
 
-        try {
-            playerConfig.save(playerDataFile);
-        } catch (IOException e) {
-            getLogger().severe("Failed to save player data: " + e.getMessage());
+        data.addItemsGenerated(cycles);
+        metrics.add(GeneratorMetrics.Counter.CATCH_UP_GENERATIONS, cycles);
+        PlayerData pData = playerData.get(data.getPlacer());
+        if (pData != null) {
+            pData.addTotalItemsGenerated(cycles);
         }
+        leaderboards.generated(data, pData);
     }
 
-    public ItemStack createGeneratorItem(String generatorName) {
-        GeneratorConfig config = generatorConfigs.get(generatorName);
-        if (config == null) return new ItemStack(Material.AIR);
+    /**
+     * Called when the chunk of these generators has just unloaded.
+     */
+    public void deactivateGenerators(List<GeneratorData> generators) {
+        for (GeneratorData data : generators) {
+            engine.unschedule(data);
+        }
+    }
 
-        ItemStack item = new ItemStack(config.getBlockType());
-        ItemMeta meta = item.getItemMeta();
+    // Getters
+    public GeneratorTable getActiveGenerators() {
+        return activeGenerators;
+    }
 
-        meta.setDisplayName(ChatColor.translateAlternateColorCodes('&', config.getDisplayName()));
+    public Map<String, GeneratorConfig> getGeneratorConfigs() {
+        return registry.getConfigs();
+    }
 
-        List<String> lore = new ArrayList<>();
-        lore.add("§7Cooldown: §e" + config.getCooldown() + "s");
-        lore.add("§7Block Type: §e" + config.getBlockType().name());
+    public GeneratorRegistry getRegistry() {
+        return registry;
+    }
 
-        lore.add("");
-        lore.add("§7Possible Items:");
-        config.getPossibleItems().forEach(possibleItem -> {
-            lore.add("§8• §f" + possibleItem.getType().name() + " §7x" + possibleItem.getAmount());
-        });
+    public TypeIndex getTypeIndex() {
+        return typeIndex;
+    }
 
-        lore.add("");
-        lore.add("§8ID: " + generatorName);
-        meta.setLore(lore);
+    public RegionManager getGeneratorStore() {
+        return generatorStore;
+    }
 
-        item.setItemMeta(meta);
-        return item;
+    public TaskScheduler getTasks() {
+        return tasks;
     }
 
-    public void reloadPlugin() {
-        // Save current state
-        saveGenerators();
-        savePlayerData();
+    public GenerationEngine getEngine() {
+        return engine;
+    }
 
-        // Reload configurations
-        reloadConfig();
-        dataConfig = YamlConfiguration.loadConfiguration(dataFile);
+    public OwnerNames getOwnerNames() {
+        return ownerNames;
+    }
 
-        // Reload generators
-        loadConfigurations();
+    public TickBudget getTickBudget() {
+        return tickBudget;
+    }
 
-        // Update existing generators with new configurations
-        activeGenerators.forEach((loc, data) -> {
-            GeneratorConfig newConfig = generatorConfigs.get(data.getGeneratorName());
-            if (newConfig != null) {
-                data.setConfig(newConfig);
-            }
-        });
+    public GeneratorMetrics getMetrics() {
+        return metrics;
+    }
 
-        // Clear cache
-        loadedChunksCache.clear();
-        lastChunkCacheUpdate = 0;
+    public Leaderboards getLeaderboards() {
+        return leaderboards;
     }
 
-    // Getters
-    public Map<Location, GeneratorData> getActiveGenerators() {
-        return activeGenerators;
+    public GeneratorItems getGeneratorItems() {
+        return generatorItems;
     }
 
-    public Map<String, GeneratorConfig> getGeneratorConfigs() {
-        return generatorConfigs;
+    public ChunkIndex getChunkIndex() {
+        return chunkIndex;
     }
 
     public GeneratorConfig getGeneratorConfig(String name) {
-        return generatorConfigs.get(name);
+        return registry.get(name);
     }
 
     public PlayerData getPlayerData(UUID uuid) {
         return playerData.computeIfAbsent(uuid, PlayerData::new);
     }
 
-    public int getGeneratorLimit(Player player) {
-        // Check permission-based limits
-        for (int i = 100; i >= 0; i--) {
-            if (player.hasPermission("itemgenerator.limit." + i)) {
-                return i;
-            }
+    /**
+     * Records that the player was seen now, if they own or owned generators.
+     */
+    public void markActive(UUID uuid) {
+        PlayerData data = playerData.get(uuid);
+        if (data != null) {
+            data.markActive(System.currentTimeMillis());
+            activityIndex.update(data);
         }
-        return getConfig().getInt("general.default-generator-limit", 5);
+    }
+
+    public Collection<PlayerData> getAllPlayerData() {
+        return playerData.values();
+    }
+
+    public ActivityIndex getActivityIndex() {
+        return activityIndex;
+    }
+
+    public OwnerIndex getOwnerIndex() {
+        return ownerIndex;
+    }
+
+    public GeneratorLimitCache getLimitCache() {
+        return limitCache;
+    }
+
+    public int getGeneratorCount(UUID owner) {
+        return networkLimits.count(owner);
+    }
+
+    public NetworkLimits getNetworkLimits() {
+        return networkLimits;
+    }
+
+    public int getGeneratorLimit(Player player) {
+        return limitCache.getLimit(player);
     }
 }
\ No newline at end of file
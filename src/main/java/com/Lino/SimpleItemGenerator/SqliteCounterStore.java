@@ -0,0 +1,163 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Store SQLite per server sullo stesso host: tutti aprono lo stesso file, e SQLite serializza
+ * le scritture con i suoi lock sul file. Una riga per (server, proprietario).
+ */
+public class SqliteCounterStore implements SharedCounterStore {
+    // Parametri per query, sotto il limite di SQLite
+    private static final int BATCH = 500;
+
+    private final File databaseFile;
+    private Connection connection;
+
+    public SqliteCounterStore(File databaseFile) {
+        this.databaseFile = databaseFile;
+    }
+
+    @Override
+    public void open() throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            File parent = databaseFile.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                // Un altro server puo' tenere il lock per qualche millisecondo
+                statement.execute("PRAGMA busy_timeout=5000");
+                statement.execute("CREATE TABLE IF NOT EXISTS owner_counts ("
+                        + "server TEXT NOT NULL, owner TEXT NOT NULL, count INTEGER NOT NULL, "
+                        + "PRIMARY KEY (server, owner))");
+                statement.execute("CREATE INDEX IF NOT EXISTS owner_counts_owner ON owner_counts (owner)");
+            }
+            connection.setAutoCommit(false);
+            connection.commit();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("SQLite driver not found, use network type LOCAL", e);
+        } catch (SQLException e) {
+            throw new IOException("Failed to open " + databaseFile.getName(), e);
+        }
+    }
+
+    @Override
+    public void publish(String server, Map<UUID, Integer> counts) throws IOException {
+        try {
+            write(server, counts);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to publish generator counts", e);
+        }
+    }
+
+    @Override
+    public void replaceAll(String server, Map<UUID, Integer> counts) throws IOException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM owner_counts WHERE server = ?")) {
+            // Nella stessa transazione: gli altri server non vedono mai questo server a zero
+            delete.setString(1, server);
+            delete.executeUpdate();
+            write(server, counts);
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to publish generator counts", e);
+        }
+    }
+
+    private void write(String server, Map<UUID, Integer> counts) throws SQLException {
+        try (PreparedStatement upsert = connection.prepareStatement("INSERT INTO owner_counts (server, owner, count) "
+                + "VALUES (?, ?, ?) ON CONFLICT (server, owner) DO UPDATE SET count = excluded.count");
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM owner_counts WHERE server = ? AND owner = ?")) {
+            for (Map.Entry<UUID, Integer> entry : counts.entrySet()) {
+                if (entry.getValue() > 0) {
+                    upsert.setString(1, server);
+                    upsert.setString(2, entry.getKey().toString());
+                    upsert.setInt(3, entry.getValue());
+                    upsert.addBatch();
+                } else {
+                    delete.setString(1, server);
+                    delete.setString(2, entry.getKey().toString());
+                    delete.addBatch();
+                }
+            }
+            upsert.executeBatch();
+            delete.executeBatch();
+        }
+    }
+
+    @Override
+    public Map<UUID, Integer> fetchOthers(String server, Collection<UUID> owners) throws IOException {
+        Map<UUID, Integer> totals = new HashMap<>();
+        List<UUID> batch = new ArrayList<>(Math.min(owners.size(), BATCH));
+        try {
+            for (UUID owner : owners) {
+                batch.add(owner);
+                if (batch.size() == BATCH) {
+                    fetch(server, batch, totals);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                fetch(server, batch, totals);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to read generator counts", e);
+        }
+        return totals;
+    }
+
+    private void fetch(String server, List<UUID> owners, Map<UUID, Integer> totals) throws SQLException {
+        String placeholders = String.join(", ", Collections.nCopies(owners.size(), "?"));
+        try (PreparedStatement statement = connection.prepareStatement("SELECT owner, SUM(count) FROM owner_counts "
+                + "WHERE server <> ? AND owner IN (" + placeholders + ") GROUP BY owner")) {
+            statement.setString(1, server);
+            for (int i = 0; i < owners.size(); i++) {
+                statement.setString(i + 2, owners.get(i).toString());
+            }
+            try (ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    totals.put(UUID.fromString(result.getString(1)), result.getInt(2));
+                }
+            }
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (connection == null) return;
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close " + databaseFile.getName(), e);
+        }
+    }
+}
@@ -0,0 +1,411 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Backend SQLite (generators.db). Il driver org.sqlite.JDBC e' gia' incluso in Spigot e Paper.
+ *
+ * I generatori sono indicizzati per chunk e per proprietario, ogni salvataggio e' una sola
+ * transazione con statement batch e tocca solo le righe modificate.
+ */
+public class SqliteGeneratorStore implements GeneratorStore {
+    // PRAGMA user_version dopo l'import dei vecchi file
+    private static final int IMPORTED_VERSION = 1;
+
+    private final File databaseFile;
+    private final File dataFolder;
+    private final Logger logger;
+    private Connection connection;
+
+    // Ultimi valori salvati per giocatore: si riscrivono solo le righe cambiate
+    private final Map<UUID, long[]> savedPlayers = new HashMap<>();
+
+    public SqliteGeneratorStore(File dataFolder, Logger logger) {
+        this.dataFolder = dataFolder;
+        this.databaseFile = new File(dataFolder, "generators.db");
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> open() throws IOException {
+        try {
+            Class.forName("org.sqlite.JDBC");
+            dataFolder.mkdirs();
+            connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode=WAL");
+                statement.execute("PRAGMA synchronous=NORMAL");
+                statement.execute("CREATE TABLE IF NOT EXISTS generators ("
+                        + "world TEXT NOT NULL, x INTEGER NOT NULL, y INTEGER NOT NULL, z INTEGER NOT NULL, "
+                        + "chunk_x INTEGER NOT NULL, chunk_z INTEGER NOT NULL, "
+                        + "type TEXT NOT NULL, owner TEXT NOT NULL, items_generated INTEGER NOT NULL DEFAULT 0, "
+                        + "last_generation INTEGER NOT NULL DEFAULT 0, PRIMARY KEY (world, x, y, z))");
+                addColumnIfMissing(statement, "generators", "last_generation", "INTEGER NOT NULL DEFAULT 0");
+                statement.execute("CREATE INDEX IF NOT EXISTS generators_chunk ON generators (world, chunk_x, chunk_z)");
+                statement.execute("CREATE INDEX IF NOT EXISTS generators_owner ON generators (owner)");
+                statement.execute("CREATE TABLE IF NOT EXISTS players ("
+                        + "uuid TEXT PRIMARY KEY, generators_placed INTEGER NOT NULL, "
+                        + "total_items_generated INTEGER NOT NULL, last_active INTEGER NOT NULL DEFAULT 0)");
+                addColumnIfMissing(statement, "players", "last_active", "INTEGER NOT NULL DEFAULT 0");
+            }
+            connection.setAutoCommit(false);
+            connection.commit();
+
+            importOnce();
+            return countOwners();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("SQLite driver not found, use storage type BINARY or YAML", e);
+        } catch (SQLException e) {
+            throw new IOException("Failed to open " + databaseFile.getName(), e);
+        }
+    }
+
+    @Override
+    public synchronized List<StoredGenerator> loadRegion(String world, int regionX, int regionZ) throws IOException {
+        int minChunkX = regionX << RegionManager.REGION_SHIFT;
+        int minChunkZ = regionZ << RegionManager.REGION_SHIFT;
+        int size = 1 << RegionManager.REGION_SHIFT;
+
+        List<StoredGenerator> generators = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT x, y, z, type, owner, items_generated, last_generation FROM generators "
+                        + "WHERE world = ? AND chunk_x >= ? AND chunk_x < ? AND chunk_z >= ? AND chunk_z < ?")) {
+            select.setString(1, world);
+            select.setInt(2, minChunkX);
+            select.setInt(3, minChunkX + size);
+            select.setInt(4, minChunkZ);
+            select.setInt(5, minChunkZ + size);
+
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    StoredGenerator generator = new StoredGenerator(world, rs.getInt(1), rs.getInt(2), rs.getInt(3),
+                            rs.getString(4), UUID.fromString(rs.getString(5)), rs.getLong(6));
+                    generator.setLastGeneration(rs.getLong(7));
+                    generators.add(generator);
+                }
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Failed to load generator region " + regionX + "," + regionZ + " of " + world, e);
+        }
+        return generators;
+    }
+
+    @Override
+    public synchronized void saveRegion(String world, int regionX, int regionZ, List<GeneratorChange> changes,
+                                        Supplier<List<StoredGenerator>> fullState) throws IOException {
+        if (changes.isEmpty()) return;
+
+        try (PreparedStatement upsert = connection.prepareStatement(
+                "INSERT INTO generators (world, x, y, z, chunk_x, chunk_z, type, owner, items_generated, "
+                        + "last_generation) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (world, x, y, z) DO UPDATE SET "
+                        + "type = excluded.type, owner = excluded.owner, items_generated = excluded.items_generated, "
+                        + "last_generation = excluded.last_generation");
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM generators WHERE world = ? AND x = ? AND y = ? AND z = ?");
+             PreparedStatement counter = connection.prepareStatement(
+                     "UPDATE generators SET items_generated = ?, last_generation = ? "
+                             + "WHERE world = ? AND x = ? AND y = ? AND z = ?")) {
+
+            // Una sola modifica per posizione, cosi' l'ordine tra i tre batch non conta
+            for (GeneratorChange change : coalesce(changes)) {
+                StoredGenerator generator = change.getGenerator();
+                switch (change.getType()) {
+                    case PLACE:
+                        upsert.setString(1, generator.getWorld());
+                        upsert.setInt(2, generator.getX());
+                        upsert.setInt(3, generator.getY());
+                        upsert.setInt(4, generator.getZ());
+                        upsert.setInt(5, generator.getX() >> 4);
+                        upsert.setInt(6, generator.getZ() >> 4);
+                        upsert.setString(7, generator.getType());
+                        upsert.setString(8, generator.getPlacer().toString());
+                        upsert.setLong(9, generator.getItemsGenerated());
+                        upsert.setLong(10, generator.getLastGeneration());
+                        upsert.addBatch();
+                        break;
+                    case REMOVE:
+                        delete.setString(1, generator.getWorld());
+                        delete.setInt(2, generator.getX());
+                        delete.setInt(3, generator.getY());
+                        delete.setInt(4, generator.getZ());
+                        delete.addBatch();
+                        break;
+                    case COUNTER:
+                        counter.setLong(1, generator.getItemsGenerated());
+                        counter.setLong(2, generator.getLastGeneration());
+                        counter.setString(3, generator.getWorld());
+                        counter.setInt(4, generator.getX());
+                        counter.setInt(5, generator.getY());
+                        counter.setInt(6, generator.getZ());
+                        counter.addBatch();
+                        break;
+                }
+            }
+
+            upsert.executeBatch();
+            delete.executeBatch();
+            counter.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to save generator region " + regionX + "," + regionZ + " of " + world, e);
+        }
+    }
+
+    /**
+     * Selects the candidates through the owner index, or the chunk index for an area, then
+     * deletes the matching rows by primary key in one transaction.
+     */
+    @Override
+    public synchronized Map<UUID, Integer> purge(StoredGeneratorFilter filter) throws IOException {
+        StringBuilder sql = new StringBuilder("SELECT world, x, y, z, type, owner FROM generators WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        if (filter.getOwners() != null) {
+            sql.append(" AND owner = ?");
+        }
+        if (filter.getType() != null) {
+            sql.append(" AND type = ?");
+            params.add(filter.getType());
+        }
+        if (filter.getWorld() != null) {
+            sql.append(" AND world = ?");
+            params.add(filter.getWorld());
+        }
+        if (filter.isArea()) {
+            sql.append(" AND chunk_x >= ? AND chunk_x <= ? AND chunk_z >= ? AND chunk_z <= ?");
+            params.addAll(List.of(filter.getMinChunkX(), filter.getMaxChunkX(), filter.getMinChunkZ(), filter.getMaxChunkZ()));
+        }
+
+        // Una query per proprietario, ognuna sull'indice generators_owner
+        List<UUID> owners = filter.getOwners() == null ? Collections.singletonList(null) : new ArrayList<>(filter.getOwners());
+        Map<UUID, Integer> removed = new HashMap<>();
+        try (PreparedStatement select = connection.prepareStatement(sql.toString());
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM generators WHERE world = ? AND x = ? AND y = ? AND z = ?")) {
+            for (UUID owner : owners) {
+                int index = 1;
+                if (owner != null) {
+                    select.setString(index++, owner.toString());
+                }
+                for (Object param : params) {
+                    select.setObject(index++, param);
+                }
+
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        StoredGenerator generator = new StoredGenerator(rs.getString(1), rs.getInt(2), rs.getInt(3),
+                                rs.getInt(4), rs.getString(5), UUID.fromString(rs.getString(6)), 0);
+                        if (!filter.matches(generator)) continue;
+
+                        delete.setString(1, generator.getWorld());
+                        delete.setInt(2, generator.getX());
+                        delete.setInt(3, generator.getY());
+                        delete.setInt(4, generator.getZ());
+                        delete.addBatch();
+                        removed.merge(generator.getPlacer(), 1, Integer::sum);
+                    }
+                }
+            }
+
+            delete.executeBatch();
+            connection.commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new IOException("Failed to purge generators", e);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized Map<UUID, PlayerData> loadPlayers() throws IOException {
+        Map<UUID, PlayerData> players = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "SELECT uuid, generators_placed, total_items_generated, last_active FROM players")) {
+            while (rs.next()) {
+                UUID uuid = UUID.fromString(rs.getString(1));
+                PlayerData data = new PlayerData(uuid);
+                data.setGeneratorsPlaced(rs.getInt(2));
+                data.setTotalItemsGenerated(rs.getLong(3));
+                // 0: riga scritta prima della colonna, il giocatore conta come visto ora
+                // e viene salvato una volta sola, non rinnovato ad ogni avvio
+                if (rs.getLong(4) != 0) {
+                    data.setLastActive(rs.getLong(4));
+                } else {
+                    data.markActive(data.getLastActive());
+                }
+                players.put(uuid, data);
+                savedPlayers.put(uuid, new long[]{data.getGeneratorsPlaced(), data.getTotalItemsGenerated(), rs.getLong(4)});
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IOException("Failed to load player data", e);
+        }
+        return players;
+    }
+
+    @Override
+    public synchronized void savePlayers(Collection<PlayerData> players) throws IOException {
+        try (PreparedStatement upsert = connection.prepareStatement(
+                "INSERT INTO players (uuid, generators_placed, total_items_generated, last_active) VALUES (?, ?, ?, ?) "
+                        + "ON CONFLICT (uuid) DO UPDATE SET generators_placed = excluded.generators_placed, "
+                        + "total_items_generated = excluded.total_items_generated, last_active = excluded.last_active")) {
+            int rows = 0;
+            for (PlayerData data : players) {
+                long[] values = {data.getGeneratorsPlaced(), data.getTotalItemsGenerated(), data.getLastActive()};
+                if (Arrays.equals(values, savedPlayers.get(data.getUuid()))) continue;
+
+                upsert.setString(1, data.getUuid().toString());
+                upsert.setLong(2, values[0]);
+                upsert.setLong(3, values[1]);
+                upsert.setLong(4, values[2]);
+                upsert.addBatch();
+                savedPlayers.put(data.getUuid(), values);
+                rows++;
+            }
+
+            if (rows > 0) {
+                upsert.executeBatch();
+                connection.commit();
+            }
+        } catch (SQLException e) {
+            rollback();
+            savedPlayers.clear();
+            throw new IOException("Failed to save player data", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (connection == null) return;
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close " + databaseFile.getName(), e);
+        } finally {
+            connection = null;
+        }
+    }
+
+    private Map<UUID, Integer> countOwners() throws SQLException {
+        Map<UUID, Integer> counts = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT owner, COUNT(*) FROM generators GROUP BY owner")) {
+            while (rs.next()) {
+                counts.put(UUID.fromString(rs.getString(1)), rs.getInt(2));
+            }
+        }
+        connection.commit();
+        return counts;
+    }
+
+    /**
+     * Imports the generators of the binary or YAML store the first time the database is used.
+     * Completion is recorded in user_version, so a database emptied later by removals or a purge
+     * is not filled again from the old files.
+     */
+    private void importOnce() throws SQLException, IOException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            if (rs.next() && rs.getInt(1) >= IMPORTED_VERSION) {
+                connection.commit();
+                return;
+            }
+        }
+
+        // Database creato prima di user_version: se ha gia' dei generatori l'import e' gia' avvenuto
+        List<StoredGenerator> generators = new ArrayList<>();
+        BinaryRegionStore binaryStore = new BinaryRegionStore(dataFolder, logger);
+        boolean empty;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT EXISTS (SELECT 1 FROM generators)")) {
+            empty = !rs.next() || rs.getInt(1) == 0;
+        }
+
+        if (empty) {
+            BinaryGeneratorStore legacyStore = new BinaryGeneratorStore(dataFolder.toPath(), "generators", logger);
+            File legacyYaml = new File(dataFolder, "data.yml");
+            generators.addAll(binaryStore.readAll());
+            if (generators.isEmpty() && legacyStore.exists()) {
+                generators.addAll(legacyStore.load());
+            }
+            if (generators.isEmpty() && legacyYaml.exists()) {
+                generators.addAll(YamlGeneratorStore.readGenerators(legacyYaml, logger));
+            }
+        }
+
+        if (!generators.isEmpty()) {
+            List<GeneratorChange> changes = new ArrayList<>(generators.size());
+            for (StoredGenerator generator : generators) {
+                changes.add(new GeneratorChange(GeneratorChange.Type.PLACE, generator));
+            }
+            saveRegion("*", 0, 0, changes, () -> generators);
+            savePlayers(binaryStore.loadPlayers().values());
+            logger.info("Imported " + generators.size() + " generators into " + databaseFile.getName());
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA user_version = " + IMPORTED_VERSION);
+        }
+        connection.commit();
+    }
+
+    private static Collection<GeneratorChange> coalesce(List<GeneratorChange> changes) {
+        Map<String, GeneratorChange> byPosition = new LinkedHashMap<>();
+        for (GeneratorChange change : changes) {
+            StoredGenerator generator = change.getGenerator();
+            String key = generator.getWorld() + "/" + generator.getX() + "," + generator.getY() + "," + generator.getZ();
+
+            GeneratorChange previous = byPosition.get(key);
+            if (change.getType() == GeneratorChange.Type.COUNTER && previous != null) {
+                // Il contatore aggiorna il place ancora da scrivere, dopo un remove non serve
+                if (previous.getType() == GeneratorChange.Type.PLACE) {
+                    previous.getGenerator().setItemsGenerated(generator.getItemsGenerated());
+                    previous.getGenerator().setLastGeneration(generator.getLastGeneration());
+                }
+                continue;
+            }
+            byPosition.put(key, change);
+        }
+        return byPosition.values();
+    }
+
+    private static void addColumnIfMissing(Statement statement, String table, String column, String definition)
+            throws SQLException {
+        try (ResultSet rs = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return;
+            }
+        }
+        statement.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warning("Rollback failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Chunk caricati mentre lo storage si sta ancora aprendo. Su Folia il thread globale non puo'
+ * elencare i chunk caricati (World.getLoadedChunks), quindi il ChunkListener e' registrato
+ * subito in onEnable e le regioni di quei chunk si aprono qui, appena lo storage e' pronto.
+ */
+public class StartupChunks {
+    private final WorldIds worldIds;
+    // null dopo release(): da li' il ChunkListener apre le regioni da solo
+    private Map<Long, Chunk> chunks = new HashMap<>();
+    private volatile boolean released;
+
+    public StartupChunks(WorldIds worldIds) {
+        this.worldIds = worldIds;
+    }
+
+    /**
+     * @return true if the caller opens the chunk's region now, false if it was set aside
+     */
+    public boolean loaded(Chunk chunk) {
+        if (released) return true;
+
+        synchronized (this) {
+            if (chunks == null) return true;
+
+            chunks.put(worldIds.chunkKey(chunk.getWorld(), chunk.getX(), chunk.getZ()), chunk);
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the caller closes the chunk's region now, false if it was only set aside
+     */
+    public boolean unloaded(Chunk chunk) {
+        if (released) return true;
+
+        synchronized (this) {
+            if (chunks == null) return true;
+
+            chunks.remove(worldIds.chunkKey(chunk.getWorld(), chunk.getX(), chunk.getZ()));
+            return false;
+        }
+    }
+
+    /**
+     * @return true if the caller closes the world's regions now
+     */
+    public boolean worldUnloaded(World world) {
+        if (released) return true;
+
+        synchronized (this) {
+            if (chunks == null) return true;
+
+            int worldId = worldIds.find(world);
+            chunks.keySet().removeIf(key -> WorldIds.worldOf(key) == worldId);
+            return false;
+        }
+    }
+
+    /**
+     * Opens the regions of the chunks set aside. Under the lock, so a chunk unloading meanwhile
+     * waits and then closes a region that is already open.
+     */
+    public synchronized void release(Consumer<Chunk> opener) {
+        if (chunks == null) return;
+
+        chunks.values().forEach(opener);
+        chunks = null;
+        released = true;
+    }
+}
@@ -0,0 +1,79 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+
+import java.util.UUID;
+
+/**
+ * Stato persistito di un generatore, indipendente da Bukkit: il mondo e' salvato per nome,
+ * cosi' i generatori di mondi non caricati sopravvivono ai salvataggi.
+ */
+public class StoredGenerator {
+    private final String world;
+    private final int x;
+    private final int y;
+    private final int z;
+    private final String type;
+    private final UUID placer;
+    private long itemsGenerated;
+    // 0 se sconosciuto (dati salvati prima che venisse registrato)
+    private long lastGeneration;
+
+    public StoredGenerator(String world, int x, int y, int z, String type, UUID placer, long itemsGenerated) {
+        this.world = world;
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.type = type;
+        this.placer = placer;
+        this.itemsGenerated = itemsGenerated;
+    }
+
+    public static StoredGenerator of(GeneratorData data) {
+        Location loc = data.getLocation();
+        StoredGenerator stored = new StoredGenerator(loc.getWorld().getName(), loc.getBlockX(), loc.getBlockY(),
+                loc.getBlockZ(), data.getGeneratorName(), data.getPlacer(), data.getItemsGenerated());
+        stored.setLastGeneration(data.getLastGeneration());
+        return stored;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public UUID getPlacer() {
+        return placer;
+    }
+
+    public long getItemsGenerated() {
+        return itemsGenerated;
+    }
+
+    public void setItemsGenerated(long itemsGenerated) {
+        this.itemsGenerated = itemsGenerated;
+    }
+
+    public long getLastGeneration() {
+        return lastGeneration;
+    }
+
+    public void setLastGeneration(long lastGeneration) {
+        this.lastGeneration = lastGeneration;
+    }
+}
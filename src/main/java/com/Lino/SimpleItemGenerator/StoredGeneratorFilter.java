@@ -0,0 +1,112 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * I filtri di una purge applicati ai generatori salvati, per il GeneratorStore: proprietari,
+ * tipo, mondo per nome e area. Le regioni in memoria sono escluse, perche' li' lo stato vivo
+ * vale piu' di quello salvato e la purge le tratta come generatori caricati.
+ */
+public class StoredGeneratorFilter {
+    private final Set<UUID> owners;
+    private final String type;
+    private final String world;
+    private final int centerX;
+    private final int centerZ;
+    private final int radius;
+    private final Set<String> excludedRegions;
+
+    /**
+     * @param owners null for any owner
+     * @param type   null for any type
+     * @param world  null for any world, required with a radius
+     * @param radius 0 for no area
+     */
+    public StoredGeneratorFilter(Set<UUID> owners, String type, String world, int centerX, int centerZ, int radius) {
+        this(owners, type, world, centerX, centerZ, radius, Collections.emptySet());
+    }
+
+    private StoredGeneratorFilter(Set<UUID> owners, String type, String world, int centerX, int centerZ, int radius,
+                                  Set<String> excludedRegions) {
+        this.owners = owners;
+        this.type = type;
+        this.world = world;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.excludedRegions = excludedRegions;
+    }
+
+    /**
+     * @param regions names from {@link #regionName}
+     */
+    public StoredGeneratorFilter excluding(Set<String> regions) {
+        return new StoredGeneratorFilter(owners, type, world, centerX, centerZ, radius, regions);
+    }
+
+    public static String regionName(String world, int regionX, int regionZ) {
+        return world + "/" + regionX + "," + regionZ;
+    }
+
+    /**
+     * @return null for any owner, otherwise the owners to purge, possibly none
+     */
+    public Set<UUID> getOwners() {
+        return owners;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getWorld() {
+        return world;
+    }
+
+    public boolean isArea() {
+        return radius > 0;
+    }
+
+    public int getMinChunkX() {
+        return (centerX - radius) >> 4;
+    }
+
+    public int getMaxChunkX() {
+        return (centerX + radius) >> 4;
+    }
+
+    public int getMinChunkZ() {
+        return (centerZ - radius) >> 4;
+    }
+
+    public int getMaxChunkZ() {
+        return (centerZ + radius) >> 4;
+    }
+
+    /**
+     * Whether the region can hold matching generators, to skip reading it.
+     */
+    public boolean matchesRegion(String world, int regionX, int regionZ) {
+        if (owners != null && owners.isEmpty()) return false;
+        if (this.world != null && !this.world.equals(world)) return false;
+        if (excludedRegions.contains(regionName(world, regionX, regionZ))) return false;
+        if (!isArea()) return true;
+
+        return regionX >= getMinChunkX() >> RegionManager.REGION_SHIFT && regionX <= getMaxChunkX() >> RegionManager.REGION_SHIFT
+                && regionZ >= getMinChunkZ() >> RegionManager.REGION_SHIFT && regionZ <= getMaxChunkZ() >> RegionManager.REGION_SHIFT;
+    }
+
+    public boolean matches(StoredGenerator generator) {
+        if (owners != null && !owners.contains(generator.getPlacer())) return false;
+        if (type != null && !type.equals(generator.getType())) return false;
+        if (!matchesRegion(generator.getWorld(), RegionManager.regionOf(generator.getX()),
+                RegionManager.regionOf(generator.getZ()))) return false;
+        if (!isArea()) return true;
+
+        long dx = generator.getX() - centerX;
+        long dz = generator.getZ() - centerZ;
+        return dx * dx + dz * dz <= (long) radius * radius;
+    }
+}
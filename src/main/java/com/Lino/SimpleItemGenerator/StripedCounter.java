@@ -0,0 +1,38 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contatore per le statistiche: gli incrementi vanno in un LongAdder (striped, nessuna contesa
+ * nemmeno da piu' thread) e vengono sommati al totale solo quando qualcuno lo legge,
+ * cioe' in pratica una volta per salvataggio.
+ *
+ * La lettura avviene sotto lock, quindi il thread di salvataggio vede sempre un totale esatto
+ * e mai un valore a meta' aggiornamento.
+ */
+public class StripedCounter {
+    private final LongAdder pending = new LongAdder();
+    private long total;
+
+    public StripedCounter(long initial) {
+        this.total = initial;
+    }
+
+    public void increment() {
+        pending.increment();
+    }
+
+    public void add(long amount) {
+        pending.add(amount);
+    }
+
+    public synchronized long get() {
+        total += pending.sumThenReset();
+        return total;
+    }
+
+    public synchronized void set(long value) {
+        pending.reset();
+        total = value;
+    }
+}
@@ -0,0 +1,44 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Scheduler usato da tutto il plugin al posto di Bukkit.getScheduler(): su Folia i task
+ * che toccano il mondo vanno sul thread della regione che possiede il chunk, altrove
+ * tutto continua a girare sul main thread come prima.
+ */
+public interface TaskScheduler {
+
+    interface Task {
+        void cancel();
+    }
+
+    static TaskScheduler create(Plugin plugin) {
+        return FoliaTaskScheduler.isSupported() ? new FoliaTaskScheduler(plugin) : new BukkitTaskScheduler(plugin);
+    }
+
+    /**
+     * Whether world access is split between region threads (Folia).
+     */
+    boolean isRegionThreaded();
+
+    /**
+     * Runs the task on the main thread, or on the global region thread on Folia.
+     */
+    void runGlobal(Runnable task);
+
+    Task runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    Task runAsyncTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs the task on the thread that owns the location, immediately if that is the current one.
+     */
+    void runAt(Location location, Runnable task);
+
+    Task runAtTimer(World world, int chunkX, int chunkZ, Runnable task, long delayTicks, long periodTicks);
+
+    boolean isOwnedByCurrentThread(World world, int chunkX, int chunkZ);
+}
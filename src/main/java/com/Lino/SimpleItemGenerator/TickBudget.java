@@ -0,0 +1,115 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+
+import java.lang.reflect.Method;
+
+/**
+ * Tempo concesso ad ogni giro del task dei generatori, ridotto quando il server e' in ritardo.
+ *
+ * Su Paper l'MSPT viene da Server.getAverageTickTime() (per reflection, il plugin compila contro
+ * spigot-api). Altrove si misura il tempo tra due tick: resta a 50 ms finche' il server tiene
+ * il passo e sale solo quando e' gia' indietro, quindi la riduzione parte da li'.
+ */
+public class TickBudget {
+    private static final double TICK_MILLIS = 50.0;
+    // Anche in pieno lag i generatori avanzano, piu' lentamente
+    private static final double MIN_SHARE = 0.1;
+    private static final double SMOOTHING = 0.2;
+
+    private final TaskScheduler tasks;
+    private Method averageTickTime = findAverageTickTime();
+
+    private volatile long budgetNanos;
+    private volatile double throttleMspt = 40.0;
+    private volatile double mspt;
+    private volatile boolean measured;
+
+    private TaskScheduler.Task task;
+    private long lastTick;
+
+    public TickBudget(TaskScheduler tasks) {
+        this.tasks = tasks;
+    }
+
+    /**
+     * @param budgetMicros time per run of the generator task, 0 = unlimited
+     * @param throttleMspt MSPT above which the budget starts shrinking
+     */
+    public void configure(long budgetMicros, double throttleMspt) {
+        this.budgetNanos = Math.max(0, budgetMicros) * 1000L;
+        this.throttleMspt = Math.min(throttleMspt, TICK_MILLIS - 1);
+    }
+
+    public synchronized void start() {
+        if (task != null) return;
+
+        lastTick = 0;
+        task = tasks.runGlobalTimer(this::sample, 1L, 1L);
+    }
+
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * @return the nanoseconds the generator task may spend now, or Long.MAX_VALUE if unlimited
+     */
+    public long nanos() {
+        long budget = budgetNanos;
+        if (budget == 0) return Long.MAX_VALUE;
+
+        // Con l'intervallo tra tick la soglia e' 50 ms e la riduzione si estende oltre
+        double start = measured ? throttleMspt : TICK_MILLIS;
+        double end = start + (TICK_MILLIS - throttleMspt);
+        double current = mspt;
+        if (current <= start) return budget;
+
+        double share = Math.max(MIN_SHARE, (end - current) / (end - start));
+        return (long) (budget * share);
+    }
+
+    public double getMspt() {
+        return mspt;
+    }
+
+    /**
+     * Whether the MSPT comes from the server rather than from the time between ticks.
+     */
+    public boolean isMeasured() {
+        return measured;
+    }
+
+    private void sample() {
+        if (averageTickTime != null) {
+            try {
+                mspt = ((Number) averageTickTime.invoke(Bukkit.getServer())).doubleValue();
+                measured = true;
+                return;
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // Es. Folia, dove non c'e' un tick unico: si passa alla misura dell'intervallo
+                averageTickTime = null;
+                measured = false;
+            }
+        }
+
+        long now = System.nanoTime();
+        if (lastTick != 0) {
+            double interval = (now - lastTick) / 1_000_000.0;
+            mspt = mspt == 0 ? interval : mspt + SMOOTHING * (interval - mspt);
+        }
+        lastTick = now;
+    }
+
+    private static Method findAverageTickTime() {
+        try {
+            return Server.class.getMethod("getAverageTickTime");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
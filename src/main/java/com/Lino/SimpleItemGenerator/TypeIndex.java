@@ -0,0 +1,37 @@
+package com.Lino.SimpleItemGenerator;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Indice tipo -> generatori caricati, cosi' un reload aggiorna solo i generatori dei tipi
+ * cambiati invece di scorrerli tutti.
+ */
+public class TypeIndex {
+    private final Map<String, Set<GeneratorData>> generatorsByType = new ConcurrentHashMap<>();
+
+    public void add(GeneratorData data) {
+        generatorsByType.computeIfAbsent(data.getGeneratorName(), type -> ConcurrentHashMap.newKeySet()).add(data);
+    }
+
+    public void remove(GeneratorData data) {
+        generatorsByType.computeIfPresent(data.getGeneratorName(), (type, generators) -> {
+            generators.remove(data);
+            return generators.isEmpty() ? null : generators;
+        });
+    }
+
+    /**
+     * @return the loaded generators of that type
+     */
+    public Set<GeneratorData> getGenerators(String type) {
+        Set<GeneratorData> generators = generatorsByType.get(type);
+        return generators == null ? Collections.emptySet() : Collections.unmodifiableSet(generators);
+    }
+
+    public void clear() {
+        generatorsByType.clear();
+    }
+}
@@ -0,0 +1,55 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.World;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assegna ad ogni mondo un id intero piccolo e stabile per la sessione,
+ * usato per impacchettare mondo e coordinate di chunk in un solo long.
+ */
+public class WorldIds {
+    private static final long COORD_MASK = (1L << 22) - 1;
+
+    private final Map<UUID, Integer> ids = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    public int id(World world) {
+        return ids.computeIfAbsent(world.getUID(), uid -> nextId.getAndIncrement());
+    }
+
+    /**
+     * @return the id, or -1 if the world has never been seen
+     */
+    public int find(World world) {
+        Integer id = ids.get(world.getUID());
+        return id == null ? -1 : id;
+    }
+
+    public long chunkKey(World world, int chunkX, int chunkZ) {
+        return chunkKey(id(world), chunkX, chunkZ);
+    }
+
+    /**
+     * Packs world id (20 bits), chunkX and chunkZ (22 bits each) into one long.
+     */
+    public static long chunkKey(int worldId, int chunkX, int chunkZ) {
+        return ((long) worldId << 44) | ((chunkX & COORD_MASK) << 22) | (chunkZ & COORD_MASK);
+    }
+
+    public static int worldOf(long chunkKey) {
+        return (int) (chunkKey >>> 44);
+    }
+
+    public static int chunkX(long chunkKey) {
+        // Estende il segno dei 22 bit
+        return (int) (chunkKey << 20 >> 42);
+    }
+
+    public static int chunkZ(long chunkKey) {
+        return (int) (chunkKey << 42 >> 42);
+    }
+}
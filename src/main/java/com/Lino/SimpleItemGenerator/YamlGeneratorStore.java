@@ -0,0 +1,246 @@
+package com.Lino.SimpleItemGenerator;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Backend YAML: il formato storico di data.yml e playerdata.yml.
+ *
+ * Tutto il file viene letto all'avvio e riscritto per intero ad ogni salvataggio con modifiche,
+ * quindi va bene per server piccoli; per molti generatori conviene BINARY o SQLITE.
+ */
+public class YamlGeneratorStore implements GeneratorStore {
+    private final File dataFile;
+    private final PlayerDataFile playerDataFile;
+    private final Logger logger;
+
+    // regione -> posizione -> generatore
+    private final Map<String, Map<String, StoredGenerator>> regions = new HashMap<>();
+    private boolean dirty;
+
+    public YamlGeneratorStore(File dataFolder, Logger logger) {
+        this.dataFile = new File(dataFolder, "data.yml");
+        this.playerDataFile = new PlayerDataFile(new File(dataFolder, "playerdata.yml"), logger);
+        this.logger = logger;
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> open() {
+        List<StoredGenerator> generators = dataFile.exists() ? readGenerators(dataFile, logger) : new ArrayList<>();
+        for (StoredGenerator generator : generators) {
+            region(generator.getWorld(), RegionManager.regionOf(generator.getX()), RegionManager.regionOf(generator.getZ()))
+                    .put(positionKey(generator), generator);
+        }
+        return BinaryRegionStore.countOwners(generators);
+    }
+
+    @Override
+    public synchronized List<StoredGenerator> loadRegion(String world, int regionX, int regionZ) {
+        Map<String, StoredGenerator> region = regions.get(regionName(world, regionX, regionZ));
+        return region == null ? new ArrayList<>() : new ArrayList<>(region.values());
+    }
+
+    @Override
+    public synchronized void saveRegion(String world, int regionX, int regionZ, List<GeneratorChange> changes,
+                                        Supplier<List<StoredGenerator>> fullState) {
+        if (changes.isEmpty()) return;
+
+        Map<String, StoredGenerator> region = region(world, regionX, regionZ);
+        for (GeneratorChange change : changes) {
+            StoredGenerator generator = change.getGenerator();
+            switch (change.getType()) {
+                case PLACE:
+                    region.put(positionKey(generator), generator);
+                    break;
+                case REMOVE:
+                    region.remove(positionKey(generator));
+                    break;
+                case COUNTER:
+                    StoredGenerator stored = region.get(positionKey(generator));
+                    if (stored != null) {
+                        stored.setItemsGenerated(generator.getItemsGenerated());
+                        stored.setLastGeneration(generator.getLastGeneration());
+                    }
+                    break;
+            }
+        }
+        dirty = true;
+    }
+
+    @Override
+    public synchronized Map<UUID, Integer> purge(StoredGeneratorFilter filter) throws IOException {
+        Map<UUID, Integer> removed = new HashMap<>();
+        for (Map<String, StoredGenerator> region : regions.values()) {
+            region.values().removeIf(generator -> {
+                if (!filter.matches(generator)) return false;
+
+                removed.merge(generator.getPlacer(), 1, Integer::sum);
+                return true;
+            });
+        }
+
+        if (!removed.isEmpty()) {
+            dirty = true;
+            commit();
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void commit() throws IOException {
+        if (!dirty) return;
+
+        YamlConfiguration dataConfig = new YamlConfiguration();
+        int i = 0;
+        for (Map<String, StoredGenerator> region : regions.values()) {
+            for (StoredGenerator generator : region.values()) {
+                ConfigurationSection section = dataConfig.createSection("generators." + i++);
+                Map<String, Object> location = new LinkedHashMap<>();
+                location.put("world", generator.getWorld());
+                location.put("x", (double) generator.getX());
+                location.put("y", (double) generator.getY());
+                location.put("z", (double) generator.getZ());
+                location.put("pitch", 0.0);
+                location.put("yaw", 0.0);
+                section.set("location", location);
+                section.set("type", generator.getType());
+                section.set("placer", generator.getPlacer().toString());
+                section.set("items-generated", generator.getItemsGenerated());
+                section.set("last-generation", generator.getLastGeneration());
+            }
+        }
+
+        saveAtomically(dataConfig, dataFile);
+        dirty = false;
+    }
+
+    @Override
+    public Map<UUID, PlayerData> loadPlayers() {
+        return playerDataFile.load();
+    }
+
+    @Override
+    public void savePlayers(Collection<PlayerData> players) throws IOException {
+        playerDataFile.save(players);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        commit();
+        regions.clear();
+    }
+
+    private Map<String, StoredGenerator> region(String world, int regionX, int regionZ) {
+        return regions.computeIfAbsent(regionName(world, regionX, regionZ), k -> new LinkedHashMap<>());
+    }
+
+    private static String regionName(String world, int regionX, int regionZ) {
+        return world + "/" + regionX + "," + regionZ;
+    }
+
+    private static String positionKey(StoredGenerator generator) {
+        return generator.getWorld() + "/" + generator.getX() + "," + generator.getY() + "," + generator.getZ();
+    }
+
+    /**
+     * Reads the generators section of a data.yml.
+     */
+    public static List<StoredGenerator> readGenerators(File file, Logger logger) {
+        YamlConfiguration dataConfig = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection generatorsSection = dataConfig.getConfigurationSection("generators");
+        List<StoredGenerator> generators = new ArrayList<>();
+        if (generatorsSection == null) return generators;
+
+        for (String key : generatorsSection.getKeys(false)) {
+            try {
+                ConfigurationSection genSection = generatorsSection.getConfigurationSection(key);
+                if (genSection == null) continue;
+
+                ConfigurationSection locSection = genSection.getConfigurationSection("location");
+                String generatorName = genSection.getString("type");
+                UUID placer = UUID.fromString(genSection.getString("placer", "00000000-0000-0000-0000-000000000000"));
+                long itemsGenerated = genSection.getLong("items-generated", 0);
+
+                if (locSection == null || generatorName == null) continue;
+
+                StoredGenerator generator = new StoredGenerator(locSection.getString("world"),
+                        (int) Math.floor(locSection.getDouble("x")),
+                        (int) Math.floor(locSection.getDouble("y")),
+                        (int) Math.floor(locSection.getDouble("z")),
+                        generatorName, placer, itemsGenerated);
+                generator.setLastGeneration(genSection.getLong("last-generation", 0));
+                generators.add(generator);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Failed to load generator: " + key, e);
+            }
+        }
+        return generators;
+    }
+
+    public static Map<UUID, PlayerData> readPlayers(File file, Logger logger) {
+        Map<UUID, PlayerData> players = new HashMap<>();
+        if (!file.exists()) return players;
+
+        YamlConfiguration playerConfig = YamlConfiguration.loadConfiguration(file);
+        ConfigurationSection section = playerConfig.getConfigurationSection("players");
+
+        if (section != null) {
+            for (String uuid : section.getKeys(false)) {
+                try {
+                    UUID playerUUID = UUID.fromString(uuid);
+                    PlayerData data = new PlayerData(playerUUID);
+
+                    ConfigurationSection playerSection = section.getConfigurationSection(uuid);
+                    data.setGeneratorsPlaced(playerSection.getInt("generators-placed", 0));
+                    data.setTotalItemsGenerated(playerSection.getLong("total-items-generated", 0));
+                    // File scritti prima di last-active: il giocatore conta come visto ora
+                    // e viene salvato una volta sola, non rinnovato ad ogni avvio
+                    if (playerSection.contains("last-active")) {
+                        data.setLastActive(playerSection.getLong("last-active"));
+                    } else {
+                        data.markActive(data.getLastActive());
+                    }
+
+                    players.put(playerUUID, data);
+                } catch (Exception e) {
+                    logger.warning("Failed to load player data for: " + uuid);
+                }
+            }
+        }
+        return players;
+    }
+
+    public static void writePlayers(File file, Collection<PlayerData> players) throws IOException {
+        YamlConfiguration playerConfig = new YamlConfiguration();
+
+        for (PlayerData data : players) {
+            ConfigurationSection section = playerConfig.createSection("players." + data.getUuid().toString());
+            section.set("generators-placed", data.getGeneratorsPlaced());
+            section.set("total-items-generated", data.getTotalItemsGenerated());
+            section.set("last-active", data.getLastActive());
+        }
+
+        saveAtomically(playerConfig, file);
+    }
+
+    private static void saveAtomically(YamlConfiguration config, File file) throws IOException {
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        config.save(tempFile);
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}